@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.media;
+
+import android.os.Parcel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * Parceling of {@link PlaybackInfo} and {@link VolumeInfo}, as done for each saved state entry.
+ * The Parcel is the JVM stand-in of this module: the relative costs are meaningful, the absolute
+ * ones are not those of a device.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParcelBenchmark {
+
+  private final Parcel parcel = Parcel.obtain();
+  private final PlaybackInfo playbackInfo =
+      new PlaybackInfo(1, 12345L, new VolumeInfo(false, 0.5f));
+  private final VolumeInfo volumeInfo = new VolumeInfo(true, 0.5f);
+
+  private int playbackInfoEnd;
+  private int volumeInfoEnd;
+
+  @Setup public void setUp() {
+    parcel.recycle();
+    parcel.writeParcelable(playbackInfo, 0);
+    playbackInfoEnd = parcel.dataPosition();
+    parcel.writeParcelable(volumeInfo, 0);
+    volumeInfoEnd = parcel.dataPosition();
+  }
+
+  @Benchmark public int writePlaybackInfo() {
+    parcel.setDataPosition(0);
+    parcel.writeParcelable(playbackInfo, 0);
+    return parcel.dataPosition();
+  }
+
+  @Benchmark public PlaybackInfo readPlaybackInfo() {
+    parcel.setDataPosition(0);
+    return parcel.readParcelable(PlaybackInfo.class.getClassLoader());
+  }
+
+  @Benchmark public int writeVolumeInfo() {
+    parcel.setDataPosition(playbackInfoEnd);
+    parcel.writeParcelable(volumeInfo, 0);
+    return parcel.dataPosition();
+  }
+
+  @Benchmark public VolumeInfo readVolumeInfo() {
+    parcel.setDataPosition(playbackInfoEnd);
+    VolumeInfo info = parcel.readParcelable(VolumeInfo.class.getClassLoader());
+    if (parcel.dataPosition() != volumeInfoEnd) throw new IllegalStateException();
+    return info;
+  }
+}
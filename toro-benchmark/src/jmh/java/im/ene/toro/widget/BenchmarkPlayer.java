@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * A {@link ToroPlayer} that only has an order, for the benchmarks.
+ */
+final class BenchmarkPlayer implements ToroPlayer {
+
+  private final int order;
+
+  BenchmarkPlayer(int order) {
+    this.order = order;
+  }
+
+  @NonNull @Override public View getPlayerView() {
+    throw new UnsupportedOperationException();
+  }
+
+  @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
+    return new PlaybackInfo();
+  }
+
+  @Override public void initialize(@NonNull Container container,
+      @NonNull PlaybackInfo playbackInfo) {
+  }
+
+  @Override public void play() {
+  }
+
+  @Override public void pause() {
+  }
+
+  @Override public boolean isPlaying() {
+    return false;
+  }
+
+  @Override public void release() {
+  }
+
+  @Override public boolean wantsToPlay() {
+    return true;
+  }
+
+  @Override public int getPlayerOrder() {
+    return order;
+  }
+}
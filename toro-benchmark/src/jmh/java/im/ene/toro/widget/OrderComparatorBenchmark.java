@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import im.ene.toro.ToroPlayer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * Sorting players with {@link Common#ORDER_COMPARATOR}: a sorted list, as the players mostly are,
+ * and a shuffled one. The list is copied from its source before each sort, and
+ * {@link #copyOnly()} is the cost of that copy alone.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderComparatorBenchmark {
+
+  @Param({ "10", "100", "1000" }) int size;
+
+  private final ArrayList<ToroPlayer> sorted = new ArrayList<>();
+  private final ArrayList<ToroPlayer> shuffled = new ArrayList<>();
+  private final ArrayList<ToroPlayer> list = new ArrayList<>();
+
+  @Setup public void setUp() {
+    sorted.clear();
+    for (int i = 0; i < size; i++) {
+      sorted.add(new BenchmarkPlayer(i));
+    }
+    shuffled.clear();
+    shuffled.addAll(sorted);
+    Collections.shuffle(shuffled, new Random(42));
+    list.ensureCapacity(size);
+  }
+
+  @Benchmark public int copyOnly() {
+    copy(sorted);
+    return list.size();
+  }
+
+  @Benchmark public ToroPlayer sortSorted() {
+    copy(sorted);
+    Collections.sort(list, Common.ORDER_COMPARATOR);
+    return list.get(0);
+  }
+
+  @Benchmark public ToroPlayer sortShuffled() {
+    copy(shuffled);
+    Collections.sort(list, Common.ORDER_COMPARATOR);
+    return list.get(0);
+  }
+
+  private void copy(ArrayList<ToroPlayer> source) {
+    list.clear();
+    list.addAll(source);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/23).
+ *
+ * The adapter range events of {@link PlaybackInfoCache}, as applied to its {@link OrderedIntMap}s
+ * of cached entries. Each benchmark leaves the map as it found it, so the size stays the same
+ * through the iterations.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderedIntMapBenchmark {
+
+  private static final int RANGE = 10;
+
+  @Param({ "1000", "10000", "100000" }) int size;
+
+  private OrderedIntMap<Object> map;
+  private final Object value = new Object();
+  private int middle;
+
+  @Setup public void setUp() {
+    map = new OrderedIntMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(i, value);
+    }
+    middle = size / 2;
+  }
+
+  // onItemRangeInserted then onItemRangeRemoved of one item, with the new item cached.
+  @Benchmark public int insertThenRemoveOne() {
+    map.shift(middle, 1);
+    map.put(middle, value);
+    map.removeRange(middle, 1);
+    return map.size();
+  }
+
+  // onItemRangeInserted of a range, then its removal with nothing cached in between.
+  @Benchmark public int insertThenRemoveRange() {
+    map.shift(middle, RANGE);
+    map.shift(middle + RANGE, -RANGE);
+    return map.size();
+  }
+
+  // onItemRangeMoved of the first item to the end, and back.
+  @Benchmark public int moveAcross() {
+    map.move(0, size - 1);
+    map.move(size - 1, 0);
+    return map.size();
+  }
+
+  // onItemRangeChanged: mark the cached entries of a range.
+  @Benchmark public int changeRange() {
+    int end = map.ceilingIndex(middle + RANGE);
+    for (int i = map.ceilingIndex(middle); i < end; i++) {
+      map.setValueAt(i, value);
+    }
+    return end;
+  }
+
+  // Lookup of a cached PlaybackInfo by the order of an attached player.
+  @Benchmark public Object get() {
+    return map.get(middle);
+  }
+}
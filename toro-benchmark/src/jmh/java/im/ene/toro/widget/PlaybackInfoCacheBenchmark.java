@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import im.ene.toro.CacheManager;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.VolumeInfo;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * The adapter range events as received by {@link PlaybackInfoCache}, with {@link
+ * CacheManager#DEFAULT}, {@code size} tracked entries and a screen of attached players. Unlike
+ * {@link OrderedIntMapBenchmark}, this includes the updates of all the maps of the cache. Each
+ * benchmark leaves the cache as it found it, so the size stays the same through the iterations.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlaybackInfoCacheBenchmark {
+
+  private static final int RANGE = 10;
+  private static final int ATTACHED = 5;
+
+  @Param({ "1000", "10000", "100000" }) int size;
+
+  private PlaybackInfoCache cache;
+  private int middle;
+
+  @Setup public void setUp() {
+    Container container = new Container();
+    container.setCacheManager(CacheManager.DEFAULT);
+    cache = new PlaybackInfoCache(container);
+    for (int i = 0; i < size; i++) {
+      cache.savePlaybackInfo(i, new PlaybackInfo(0, i, new VolumeInfo(false, 1.f)));
+    }
+    cache.onAttach();
+    middle = size / 2;
+    for (int i = 0; i < ATTACHED; i++) {
+      cache.onPlayerAttached(new BenchmarkPlayer(middle - ATTACHED / 2 + i));
+    }
+  }
+
+  // An item inserted in the middle of the attached ones, then removed.
+  @Benchmark public int insertThenRemoveOne() {
+    cache.onItemRangeInserted(middle, 1);
+    cache.onItemRangeRemoved(middle, 1);
+    return cache.coldInfos.size();
+  }
+
+  // A range of items inserted, then removed.
+  @Benchmark public int insertThenRemoveRange() {
+    cache.onItemRangeInserted(middle, RANGE);
+    cache.onItemRangeRemoved(middle, RANGE);
+    return cache.coldInfos.size();
+  }
+
+  // Same as insertThenRemoveRange, in one batch.
+  @Benchmark public int insertThenRemoveRangeBatched() {
+    cache.beginBatch();
+    cache.onItemRangeInserted(middle, RANGE);
+    cache.onItemRangeRemoved(middle, RANGE);
+    cache.endBatch();
+    return cache.coldInfos.size();
+  }
+
+  // The first item moved to the end, and back.
+  @Benchmark public int moveAcross() {
+    cache.onItemRangeMoved(0, size - 1, 1);
+    cache.onItemRangeMoved(size - 1, 0, 1);
+    return cache.coldInfos.size();
+  }
+
+  // A range of items changed around the attached ones.
+  @Benchmark public int changeRange() {
+    cache.onItemRangeChanged(middle - RANGE / 2, RANGE);
+    return cache.coldInfos.size();
+  }
+
+  // Lookup of the PlaybackInfo of an attached player.
+  @Benchmark public PlaybackInfo getPlaybackInfo() {
+    return cache.getPlaybackInfo(middle);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import im.ene.toro.PlayerSelector;
+import im.ene.toro.ToroPlayer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * The built-in {@link PlayerSelector}s over {@code size} candidates. The selectors modify the
+ * candidate list, so it is filled again before each selection like Container does, and
+ * {@link #fillOnly()} is the cost of that refill alone.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerSelectorBenchmark {
+
+  @Param({ "10", "1000", "100000" }) int size;
+
+  private Container container;
+  private final ArrayList<ToroPlayer> players = new ArrayList<>();
+  private final ArrayList<ToroPlayer> candidates = new ArrayList<>();
+
+  @Setup public void setUp() {
+    container = new Container();
+    players.clear();
+    for (int i = 0; i < size; i++) {
+      BenchmarkPlayer player = new BenchmarkPlayer(i);
+      players.add(player);
+      // Visible areas rise then fall, like a screen of players around the middle one.
+      container.visibilityTracker.setVisibleAreaOffset(player, 1.f / (1 + Math.abs(size / 2 - i)));
+    }
+    candidates.ensureCapacity(size);
+  }
+
+  @Benchmark public int fillOnly() {
+    fill();
+    return candidates.size();
+  }
+
+  @Benchmark public Collection<ToroPlayer> selectDefault() {
+    fill();
+    return PlayerSelector.DEFAULT.select(container, candidates);
+  }
+
+  @Benchmark public Collection<ToroPlayer> selectDefaultReverse() {
+    fill();
+    return PlayerSelector.DEFAULT_REVERSE.select(container, candidates);
+  }
+
+  @Benchmark public Collection<ToroPlayer> selectByArea() {
+    fill();
+    return PlayerSelector.BY_AREA.select(container, candidates);
+  }
+
+  private void fill() {
+    candidates.clear();
+    for (int i = 0; i < size; i++) {
+      candidates.add(players.get(i));
+    }
+  }
+}
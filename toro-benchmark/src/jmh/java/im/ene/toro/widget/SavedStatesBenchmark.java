@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.Parcel;
+import android.util.SparseArray;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.VolumeInfo;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * The saved state of a PlaybackInfo cache of {@code size} entries: the packed encoding of
+ * {@link SavedStates}, against the legacy {@link Parcel#writeSparseArray(SparseArray)} of all the
+ * entries. The Parcel sizes of both are printed once per trial.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SavedStatesBenchmark {
+
+  @Param({ "1000", "10000", "100000" }) int size;
+
+  private final ClassLoader loader = SavedStatesBenchmark.class.getClassLoader();
+  private final Parcel parcel = Parcel.obtain();
+  private final Parcel packed = Parcel.obtain();
+  private final Parcel legacy = Parcel.obtain();
+  private SparseArray<Object> states;
+
+  @Setup public void setUp() {
+    states = new SparseArray<>(size);
+    for (int i = 0; i < size; i++) {
+      states.put(i, new PlaybackInfo(0, i * 1000L, new VolumeInfo(i % 2 == 0, 1.f)));
+    }
+    packed.recycle();
+    SavedStates.writeStates(packed, states);
+    legacy.recycle();
+    legacy.writeSparseArray(states);
+    System.out.printf("%nParcel size of %d entries: packed %d bytes, legacy %d bytes%n", size,
+        packed.dataSize(), legacy.dataSize());
+  }
+
+  @Benchmark public int writePacked() {
+    parcel.recycle();
+    SavedStates.writeStates(parcel, states);
+    return parcel.dataSize();
+  }
+
+  @Benchmark public int writeLegacy() {
+    parcel.recycle();
+    parcel.writeSparseArray(states);
+    return parcel.dataSize();
+  }
+
+  @Benchmark public SparseArray<Object> readPacked() {
+    packed.setDataPosition(0);
+    return SavedStates.readStates(packed, loader);
+  }
+
+  @Benchmark public SparseArray<?> readLegacy() {
+    legacy.setDataPosition(0);
+    return legacy.readSparseArray(loader);
+  }
+}
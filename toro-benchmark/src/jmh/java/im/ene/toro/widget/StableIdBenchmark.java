@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.v7.widget.RecyclerView;
+import im.ene.toro.CacheManager;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.VolumeInfo;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * {@link PlaybackInfoCache} keyed by the Adapter's stable ids, against the keys of
+ * {@link CacheManager#DEFAULT}. Each of the {@code size} items has a cached PlaybackInfo, and a
+ * screen of players is attached. Each benchmark leaves the cache with the same entries, so the
+ * size stays the same through the iterations.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StableIdBenchmark {
+
+  private static final int RANGE = 10;
+  private static final int ATTACHED = 5;
+
+  @Param({ "stableIds", "cacheManager" }) String mode;
+  @Param({ "1000", "10000", "100000" }) int size;
+
+  private PlaybackInfoCache cache;
+  private BenchmarkPlayer[] players;
+  private final PlaybackInfo info = new PlaybackInfo(0, 1000L, new VolumeInfo(false, 1.f));
+  private int first;  // order of the first attached player.
+  private int lookup;
+
+  @Setup public void setUp() {
+    Container container = new Container();
+    container.setAdapter(new IdAdapter(size));
+    if ("cacheManager".equals(mode)) container.setCacheManager(CacheManager.DEFAULT);
+    cache = new PlaybackInfoCache(container);
+    players = new BenchmarkPlayer[size];
+    for (int i = 0; i < size; i++) {
+      players[i] = new BenchmarkPlayer(i);
+      cache.savePlaybackInfo(i, new PlaybackInfo(0, i, new VolumeInfo(false, 1.f)));
+    }
+    cache.onAttach();
+    first = 0;
+    for (int i = 0; i < ATTACHED; i++) {
+      cache.onPlayerAttached(players[i]);
+    }
+    lookup = size / 2;
+  }
+
+  // Scroll by one item: the first attached player is detached, the next one is attached.
+  @Benchmark public int scrollOne() {
+    cache.onPlayerDetached(players[first]);
+    cache.onPlayerAttached(players[(first + ATTACHED) % size]);
+    first = (first + 1) % size;
+    return first;
+  }
+
+  // The PlaybackInfo of a player saved on pause.
+  @Benchmark public int saveOnPause() {
+    cache.savePlaybackInfo(first, info);
+    return first;
+  }
+
+  // Lookup of the PlaybackInfo of an item which is not attached.
+  @Benchmark public PlaybackInfo getDetached() {
+    lookup = lookup + 1 < size ? lookup + 1 : ATTACHED;
+    return cache.getPlaybackInfo(lookup);
+  }
+
+  // A range of items inserted, then removed, away from the attached players.
+  @Benchmark public int insertThenRemoveRange() {
+    int middle = (first + size / 2) % (size - RANGE);
+    cache.onItemRangeInserted(middle, RANGE);
+    cache.onItemRangeRemoved(middle, RANGE);
+    return middle;
+  }
+
+  static final class IdAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private final int itemCount;
+
+    IdAdapter(int itemCount) {
+      this.itemCount = itemCount;
+      setHasStableIds(true);
+    }
+
+    @Override public int getItemCount() {
+      return itemCount;
+    }
+
+    @Override public long getItemId(int position) {
+      return 1000000L + position;
+    }
+  }
+}
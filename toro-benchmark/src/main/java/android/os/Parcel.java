@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import android.util.SparseArray;
+import java.util.HashMap;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * JVM stand-in of the Android Parcel, for the benchmarks only. Values are laid out like Android
+ * does: in 4 bytes slots, strings in UTF-16 with a length prefix, Parcelables after their class
+ * name, typed values after a type tag. So {@link #dataSize()} is the size of a real Parcel.
+ */
+@SuppressWarnings({ "unchecked", "WeakerAccess" }) //
+public final class Parcel {
+
+  private static final int VAL_NULL = -1;
+  private static final int VAL_STRING = 0;
+  private static final int VAL_INTEGER = 1;
+  private static final int VAL_PARCELABLE = 4;
+
+  // Android caches the CREATORs by class name too.
+  private static final HashMap<String, Parcelable.Creator<?>> creators = new HashMap<>();
+
+  private byte[] data = new byte[256];
+  private int size;
+  private int position;
+
+  public static Parcel obtain() {
+    return new Parcel();
+  }
+
+  public void recycle() {
+    size = 0;
+    position = 0;
+  }
+
+  public int dataSize() {
+    return size;
+  }
+
+  public int dataPosition() {
+    return position;
+  }
+
+  public void setDataPosition(int position) {
+    this.position = position;
+  }
+
+  public void writeInt(int value) {
+    ensureCapacity(4);
+    data[position] = (byte) value;
+    data[position + 1] = (byte) (value >> 8);
+    data[position + 2] = (byte) (value >> 16);
+    data[position + 3] = (byte) (value >> 24);
+    advance(4);
+  }
+
+  public int readInt() {
+    int value = (data[position] & 0xff) | (data[position + 1] & 0xff) << 8
+        | (data[position + 2] & 0xff) << 16 | (data[position + 3] & 0xff) << 24;
+    position += 4;
+    return value;
+  }
+
+  public void writeLong(long value) {
+    writeInt((int) value);
+    writeInt((int) (value >>> 32));
+  }
+
+  public long readLong() {
+    long low = readInt() & 0xffffffffL;
+    return low | ((long) readInt()) << 32;
+  }
+
+  public void writeFloat(float value) {
+    writeInt(Float.floatToRawIntBits(value));
+  }
+
+  public float readFloat() {
+    return Float.intBitsToFloat(readInt());
+  }
+
+  public void writeByte(byte value) {
+    writeInt(value);
+  }
+
+  public byte readByte() {
+    return (byte) readInt();
+  }
+
+  public void writeString(String value) {
+    if (value == null) {
+      writeInt(-1);
+      return;
+    }
+    int length = value.length();
+    writeInt(length);
+    int bytes = (length + 1) * 2;  // With the null terminator.
+    ensureCapacity(bytes + 3);
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      data[position + 2 * i] = (byte) c;
+      data[position + 2 * i + 1] = (byte) (c >> 8);
+    }
+    data[position + 2 * length] = 0;
+    data[position + 2 * length + 1] = 0;
+    advance((bytes + 3) & ~3);
+  }
+
+  public String readString() {
+    int length = readInt();
+    if (length < 0) return null;
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) ((data[position + 2 * i] & 0xff) | (data[position + 2 * i + 1] << 8));
+    }
+    position += ((length + 1) * 2 + 3) & ~3;
+    return new String(chars);
+  }
+
+  public void writeParcelable(Parcelable value, int flags) {
+    if (value == null) {
+      writeString(null);
+      return;
+    }
+    writeString(value.getClass().getName());
+    value.writeToParcel(this, flags);
+  }
+
+  public <T extends Parcelable> T readParcelable(ClassLoader loader) {
+    String name = readString();
+    if (name == null) return null;
+    Parcelable.Creator<?> creator = getCreator(name, loader);
+    if (creator instanceof Parcelable.ClassLoaderCreator) {
+      return (T) ((Parcelable.ClassLoaderCreator<?>) creator).createFromParcel(this, loader);
+    }
+    return (T) creator.createFromParcel(this);
+  }
+
+  public void writeValue(Object value) {
+    if (value == null) {
+      writeInt(VAL_NULL);
+    } else if (value instanceof String) {
+      writeInt(VAL_STRING);
+      writeString((String) value);
+    } else if (value instanceof Integer) {
+      writeInt(VAL_INTEGER);
+      writeInt((Integer) value);
+    } else if (value instanceof Parcelable) {
+      writeInt(VAL_PARCELABLE);
+      writeParcelable((Parcelable) value, 0);
+    } else {
+      throw new IllegalArgumentException("Unsupported value: " + value);
+    }
+  }
+
+  public Object readValue(ClassLoader loader) {
+    int type = readInt();
+    switch (type) {
+      case VAL_NULL:
+        return null;
+      case VAL_STRING:
+        return readString();
+      case VAL_INTEGER:
+        return readInt();
+      case VAL_PARCELABLE:
+        return readParcelable(loader);
+      default:
+        throw new IllegalStateException("Unknown type: " + type);
+    }
+  }
+
+  public void writeSparseArray(SparseArray<Object> value) {
+    if (value == null) {
+      writeInt(-1);
+      return;
+    }
+    int size = value.size();
+    writeInt(size);
+    for (int i = 0; i < size; i++) {
+      writeInt(value.keyAt(i));
+      writeValue(value.valueAt(i));
+    }
+  }
+
+  public SparseArray readSparseArray(ClassLoader loader) {
+    int size = readInt();
+    if (size < 0) return null;
+    SparseArray<Object> array = new SparseArray<>(size);
+    for (int i = 0; i < size; i++) {
+      int key = readInt();
+      array.append(key, readValue(loader));
+    }
+    return array;
+  }
+
+  private static Parcelable.Creator<?> getCreator(String name, ClassLoader loader) {
+    Parcelable.Creator<?> creator = creators.get(name);
+    if (creator == null) {
+      try {
+        Class<?> type = Class.forName(name, false, loader);
+        creator = (Parcelable.Creator<?>) type.getField("CREATOR").get(null);
+      } catch (ReflectiveOperationException er) {
+        throw new IllegalStateException("No CREATOR for: " + name, er);
+      }
+      creators.put(name, creator);
+    }
+    return creator;
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (position + bytes > data.length) {
+      byte[] grown = new byte[Math.max(data.length * 2, position + bytes)];
+      System.arraycopy(data, 0, grown, 0, size);
+      data = grown;
+    }
+  }
+
+  private void advance(int bytes) {
+    position += bytes;
+    if (position > size) size = position;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.widget;
+
+import android.view.View;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * JVM stand-in of the RecyclerView, for the benchmarks only. Only has the Adapter side.
+ */
+public class RecyclerView {
+
+  public static final long NO_ID = -1;
+  public static final int NO_POSITION = -1;
+
+  public abstract static class ViewHolder {
+
+    public final View itemView;
+
+    public ViewHolder(View itemView) {
+      this.itemView = itemView;
+    }
+  }
+
+  public abstract static class Adapter<VH extends ViewHolder> {
+
+    private boolean hasStableIds;
+
+    public abstract int getItemCount();
+
+    public long getItemId(int position) {
+      return NO_ID;
+    }
+
+    public void setHasStableIds(boolean hasStableIds) {
+      this.hasStableIds = hasStableIds;
+    }
+
+    public final boolean hasStableIds() {
+      return hasStableIds;
+    }
+  }
+
+  public abstract static class AdapterDataObserver {
+
+    public void onChanged() {
+    }
+
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+    }
+
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      onItemRangeChanged(positionStart, itemCount);
+    }
+
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+    }
+
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+    }
+
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * JVM stand-in of the Android LongSparseArray, for the benchmarks only. Same layout: sorted keys
+ * with binary search, values in a parallel array.
+ */
+@SuppressWarnings("unchecked") //
+public class LongSparseArray<E> {
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+
+  public LongSparseArray() {
+    this(10);
+  }
+
+  public LongSparseArray(int initialCapacity) {
+    keys = new long[Math.max(1, initialCapacity)];
+    values = new Object[keys.length];
+  }
+
+  public E get(long key) {
+    return get(key, null);
+  }
+
+  public E get(long key, E valueIfKeyNotFound) {
+    int index = indexOfKey(key);
+    return index >= 0 ? (E) values[index] : valueIfKeyNotFound;
+  }
+
+  public void put(long key, E value) {
+    int index = indexOfKey(key);
+    if (index >= 0) {
+      values[index] = value;
+      return;
+    }
+    index = ~index;
+    if (size == keys.length) {
+      long[] newKeys = new long[size * 2];
+      Object[] newValues = new Object[size * 2];
+      System.arraycopy(keys, 0, newKeys, 0, size);
+      System.arraycopy(values, 0, newValues, 0, size);
+      keys = newKeys;
+      values = newValues;
+    }
+    System.arraycopy(keys, index, keys, index + 1, size - index);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    keys[index] = key;
+    values[index] = value;
+    size++;
+  }
+
+  public void append(long key, E value) {
+    put(key, value);
+  }
+
+  public void remove(long key) {
+    delete(key);
+  }
+
+  public void delete(long key) {
+    int index = indexOfKey(key);
+    if (index >= 0) removeAt(index);
+  }
+
+  public void removeAt(int index) {
+    System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    values[--size] = null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long keyAt(int index) {
+    return keys[index];
+  }
+
+  public E valueAt(int index) {
+    return (E) values[index];
+  }
+
+  public void setValueAt(int index, E value) {
+    values[index] = value;
+  }
+
+  public int indexOfKey(long key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midKey = keys[mid];
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return ~low;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      values[i] = null;
+    }
+    size = 0;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro;
+
+import android.support.annotation.NonNull;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * JVM stand-in of {@code ToroUtil}, for the benchmarks only. The real one needs the View and
+ * CoordinatorLayout classes, and the benchmarked code only uses its checks.
+ */
+public final class ToroUtil {
+
+  private ToroUtil() {
+    throw new RuntimeException("Meh!");
+  }
+
+  @NonNull public static <T> T checkNotNull(final T reference, final Object errorMessage) {
+    if (reference == null) throw new NullPointerException(String.valueOf(errorMessage));
+    return reference;
+  }
+
+  @NonNull public static <T> T checkNotNull(final T reference) {
+    if (reference == null) throw new NullPointerException();
+    return reference;
+  }
+}
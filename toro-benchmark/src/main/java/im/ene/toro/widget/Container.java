@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import im.ene.toro.CacheManager;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.PlaybackInfoStore;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * JVM stand-in of the {@code Container}, for the benchmarks only. Not a View: it only holds what
+ * {@link PlaybackInfoCache} and the {@link im.ene.toro.PlayerSelector}s read from it.
+ */
+@SuppressWarnings("WeakerAccess") //
+public class Container {
+
+  /* pkg */ final VisibilityTracker visibilityTracker = new VisibilityTracker();
+  /* pkg */ Initializer playerInitializer = Initializer.DEFAULT;
+  @Nullable private CacheManager cacheManager;
+  @Nullable private RecyclerView.Adapter adapter;
+  @Nullable private PlaybackInfoStore playbackInfoStore;
+
+  public final float getVisibleAreaOffset(@NonNull ToroPlayer player) {
+    return visibilityTracker.visibleAreaOffset(player);
+  }
+
+  public final void setCacheManager(@Nullable CacheManager cacheManager) {
+    this.cacheManager = cacheManager;
+  }
+
+  @Nullable public final CacheManager getCacheManager() {
+    return cacheManager;
+  }
+
+  public final void setAdapter(@Nullable RecyclerView.Adapter adapter) {
+    this.adapter = adapter;
+  }
+
+  @Nullable public final RecyclerView.Adapter getAdapter() {
+    return adapter;
+  }
+
+  public final void setPlaybackInfoStore(@Nullable PlaybackInfoStore playbackInfoStore) {
+    this.playbackInfoStore = playbackInfoStore;
+  }
+
+  @Nullable public final PlaybackInfoStore getPlaybackInfoStore() {
+    return playbackInfoStore;
+  }
+
+  public interface Initializer {
+
+    @NonNull PlaybackInfo initPlaybackInfo(int order);
+
+    Initializer DEFAULT = new Initializer() {
+      @NonNull @Override public PlaybackInfo initPlaybackInfo(int order) {
+        return new PlaybackInfo();
+      }
+    };
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import im.ene.toro.ToroPlayer;
+import java.util.IdentityHashMap;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * JVM stand-in of {@code VisibilityTracker}, for the benchmarks only. The visible areas are set by
+ * the benchmarks, as the real snapshot is a map lookup too once computed.
+ */
+final class VisibilityTracker {
+
+  private final IdentityHashMap<ToroPlayer, Float> offsets = new IdentityHashMap<>();
+
+  void setVisibleAreaOffset(@NonNull ToroPlayer player, float offset) {
+    offsets.put(player, offset);
+  }
+
+  boolean isVisible(@NonNull ToroPlayer player) {
+    return visibleAreaOffset(player) > 0;
+  }
+
+  float visibleAreaOffset(@NonNull ToroPlayer player) {
+    Float offset = offsets.get(player);
+    return offset != null ? offset : 0.f;
+  }
+}
@@ -16,6 +16,8 @@
 
 package im.ene.toro;
 
+import android.support.annotation.NonNull;
+
 /**
  * This is an addition layer used in PlayerManager. Setting this where
  * {@link #getDelayToPlay(ToroPlayer)} returns a positive value will result in a delay in playback
@@ -48,4 +50,120 @@ public interface PlayerDispatcher {
       return DELAY_NONE;
     }
   };
+
+  /**
+   * A {@link PlayerDispatcher} which starts a {@link ToroPlayer.ReadinessAware} player once it is
+   * ready enough, rather than after a fixed delay. The player is pre-warmed, then checked again
+   * each time it reports a readiness change. For such a player, {@link #getDelayToPlay(ToroPlayer)}
+   * is the max time to wait: {@link #DELAY_INFINITE} waits for the condition only, and
+   * {@link #DELAY_NONE} doesn't wait. Other players start without waiting.
+   */
+  interface Conditional extends PlayerDispatcher {
+
+    /**
+     * @param player the player that is about to play.
+     * @return {@code true} if the player can start now.
+     */
+    boolean isReadyToPlay(@NonNull ToroPlayer.ReadinessAware player);
+  }
+
+  /**
+   * Start the playback after a fixed delay.
+   */
+  final class FixedDelay implements PlayerDispatcher {
+
+    private final int delay;
+
+    /**
+     * @param delay see {@link #getDelayToPlay(ToroPlayer)}.
+     */
+    public FixedDelay(int delay) {
+      if (delay < DELAY_INFINITE) throw new IllegalArgumentException("Too negative: " + delay);
+      this.delay = delay;
+    }
+
+    @Override public int getDelayToPlay(ToroPlayer player) {
+      return delay;
+    }
+  }
+
+  /**
+   * Start the playback once at least {@code thresholdMs} of media is buffered. A threshold of
+   * {@code 0} waits for the first video frame to be rendered instead.
+   */
+  final class Buffered implements Conditional {
+
+    private final long thresholdMs;
+    private final int maxWait;
+
+    /**
+     * @param thresholdMs min buffered duration to start, in milliseconds. 0 for the first frame.
+     * @param maxWait max time to wait for the condition, see {@link Conditional}.
+     */
+    public Buffered(long thresholdMs, int maxWait) {
+      if (maxWait < DELAY_INFINITE) throw new IllegalArgumentException("Too negative: " + maxWait);
+      this.thresholdMs = thresholdMs;
+      this.maxWait = maxWait;
+    }
+
+    @Override public int getDelayToPlay(ToroPlayer player) {
+      return maxWait;
+    }
+
+    @Override public boolean isReadyToPlay(@NonNull ToroPlayer.ReadinessAware player) {
+      return thresholdMs > 0 ? player.getBufferedDurationMs() >= thresholdMs
+          : player.isFirstFrameRendered();
+    }
+  }
+
+  /**
+   * Start the playback once enough media is buffered for the current network: a short buffer is
+   * enough when the estimated bandwidth is high, a longer one is required otherwise.
+   */
+  final class NetworkAware implements Conditional {
+
+    /**
+     * Source of the bandwidth estimate. ExoPlayer's BandwidthMeter has the same method.
+     */
+    public interface BandwidthEstimator {
+
+      /**
+       * @return estimated bandwidth in bits per second, or a non-positive value if unknown.
+       */
+      long getBitrateEstimate();
+    }
+
+    @NonNull private final BandwidthEstimator estimator;
+    private final long fastBitrate;
+    private final long fastThresholdMs;
+    private final long slowThresholdMs;
+    private final int maxWait;
+
+    /**
+     * @param estimator source of the bandwidth estimate.
+     * @param fastBitrate min estimated bandwidth of a fast network, in bits per second.
+     * @param fastThresholdMs min buffered duration to start on a fast network, in milliseconds.
+     * @param slowThresholdMs min buffered duration to start otherwise, in milliseconds.
+     * @param maxWait max time to wait for the condition, see {@link Conditional}.
+     */
+    public NetworkAware(@NonNull BandwidthEstimator estimator, long fastBitrate,
+        long fastThresholdMs, long slowThresholdMs, int maxWait) {
+      if (maxWait < DELAY_INFINITE) throw new IllegalArgumentException("Too negative: " + maxWait);
+      this.estimator = ToroUtil.checkNotNull(estimator);
+      this.fastBitrate = fastBitrate;
+      this.fastThresholdMs = fastThresholdMs;
+      this.slowThresholdMs = slowThresholdMs;
+      this.maxWait = maxWait;
+    }
+
+    @Override public int getDelayToPlay(ToroPlayer player) {
+      return maxWait;
+    }
+
+    @Override public boolean isReadyToPlay(@NonNull ToroPlayer.ReadinessAware player) {
+      long bitrate = estimator.getBitrateEstimate();
+      long threshold = bitrate > 0 && bitrate >= fastBitrate ? fastThresholdMs : slowThresholdMs;
+      return player.getBufferedDurationMs() >= threshold;
+    }
+  }
 }
@@ -20,16 +20,10 @@ import android.support.annotation.NonNull;
 import im.ene.toro.annotations.Sorted;
 import im.ene.toro.widget.Container;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 
-import static im.ene.toro.ToroUtil.visibleAreaOffset;
 import static im.ene.toro.annotations.Sorted.Order.ASCENDING;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
 
 /**
  * @author eneim | 6/2/17.
@@ -61,12 +55,18 @@ public interface PlayerSelector {
    * Select a collection of {@link ToroPlayer}s to start a playback (if there is non-playing) item.
    * Playing item are also selected.
    *
+   * The selector may modify {@code items} and return it as the result, so that a selection
+   * allocates nothing. The built-in selectors do so: after the call, {@code items} only holds the
+   * selected players, and is the returned collection. A caller which needs the candidates after
+   * the selection must pass a copy.
+   *
    * @param container current {@link Container} that holds the players.
-   * @param items a mutable collection of candidate {@link ToroPlayer}s, which are the players
-   * those can start a playback. Items are sorted in order obtained from
-   * {@link ToroPlayer#getPlayerOrder()}.
-   * @return the collection of {@link ToroPlayer}s to start a playback. An on-going playback can be
-   * selected, but it will keep playing.
+   * @param items a mutable list of candidate {@link ToroPlayer}s, which are the players those can
+   * start a playback. Items are sorted in order obtained from {@link ToroPlayer#getPlayerOrder()}.
+   * This list is reused by {@link Container} for the next selection, so do not keep any reference
+   * to it.
+   * @return the collection of {@link ToroPlayer}s to start a playback, which may be {@code items}
+   * itself. An on-going playback can be selected, but it will keep playing.
    */
   @NonNull Collection<ToroPlayer> select(@NonNull Container container,
       @Sorted(order = ASCENDING) @NonNull List<ToroPlayer> items);
@@ -82,11 +82,19 @@ public interface PlayerSelector {
    */
   @NonNull PlayerSelector reverse();
 
+  /**
+   * Select the first candidate. Keeps only this one in the candidate list, and returns that list.
+   */
   PlayerSelector DEFAULT = new PlayerSelector() {
     @NonNull @Override public Collection<ToroPlayer> select(@NonNull Container container, //
         @Sorted(order = ASCENDING) @NonNull List<ToroPlayer> items) {
       int count = items.size();
-      return count > 0 ? singletonList(items.get(0)) : Collections.<ToroPlayer>emptyList();
+      if (count > 1) {
+        ToroPlayer first = items.get(0);
+        items.clear();
+        items.add(first);
+      }
+      return items;
     }
 
     @NonNull @Override public PlayerSelector reverse() {
@@ -94,11 +102,19 @@ public interface PlayerSelector {
     }
   };
 
+  /**
+   * Select the last candidate. Keeps only this one in the candidate list, and returns that list.
+   */
   PlayerSelector DEFAULT_REVERSE = new PlayerSelector() {
     @NonNull @Override public Collection<ToroPlayer> select(@NonNull Container container, //
         @Sorted(order = ASCENDING) @NonNull List<ToroPlayer> items) {
       int count = items.size();
-      return count > 0 ? singletonList(items.get(count - 1)) : Collections.<ToroPlayer>emptyList();
+      if (count > 1) {
+        ToroPlayer last = items.get(count - 1);
+        items.clear();
+        items.add(last);
+      }
+      return items;
     }
 
     @NonNull @Override public PlayerSelector reverse() {
@@ -106,29 +122,31 @@ public interface PlayerSelector {
     }
   };
 
+  /**
+   * Select the candidate with the largest visible area. Keeps only this one in the candidate list,
+   * and returns that list.
+   */
   @SuppressWarnings("unused") PlayerSelector BY_AREA = new PlayerSelector() {
 
-    NavigableMap<Float, ToroPlayer> areas = new TreeMap<>(new Comparator<Float>() {
-      @Override public int compare(Float o1, Float o2) {
-        return Float.compare(o2, o1); // reverse order, from high to low.
-      }
-    });
-
     @NonNull @Override public Collection<ToroPlayer> select(@NonNull final Container container,
         @Sorted(order = ASCENDING) @NonNull List<ToroPlayer> items) {
-      areas.clear();
       int count = items.size();
-      if (count > 0) {
+      if (count > 1) {
+        // Select the one with largest visible area. The last one wins if there are more than one.
+        ToroPlayer selected = null;
+        float maxArea = -1;
         for (int i = 0; i < count; i++) {
           ToroPlayer item = items.get(i);
-          if (!areas.containsValue(item)) areas.put(visibleAreaOffset(item, container), item);
+          float area = container.getVisibleAreaOffset(item);
+          if (area >= maxArea) {
+            maxArea = area;
+            selected = item;
+          }
         }
-
-        count = areas.size();
+        items.clear();
+        items.add(selected);
       }
-
-      return count > 0 ? singletonList(areas.firstEntry().getValue())
-          : Collections.<ToroPlayer>emptyList();
+      return items;
     }
 
     @NonNull @Override public PlayerSelector reverse() {
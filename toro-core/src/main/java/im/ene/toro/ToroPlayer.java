@@ -89,6 +89,48 @@ public interface ToroPlayer {
     void onCompleted(); // ExoPlayer state: 4
   }
 
+  /**
+   * Optional interface for a {@link ToroPlayer} which can prepare its media ahead of the playback.
+   * See {@link Container#setPrewarmWindow(int, int)}.
+   */
+  interface Prewarmable {
+
+    /**
+     * Prepare the media resource (for example, start buffering) without starting the playback.
+     * This is called after {@link ToroPlayer#initialize(Container, PlaybackInfo)}.
+     */
+    void prewarm();
+  }
+
+  /**
+   * Optional interface for a {@link ToroPlayer} which can tell how ready it is to start, so that a
+   * {@link PlayerDispatcher.Conditional} can wait for it. It is pre-warmed to start loading before
+   * the wait. {@link im.ene.toro.helper.ToroPlayerHelper} implements the same methods, a player can
+   * forward the calls there.
+   */
+  interface ReadinessAware extends Prewarmable {
+
+    /**
+     * @return duration of the media buffered ahead of the current position, in milliseconds.
+     */
+    long getBufferedDurationMs();
+
+    /**
+     * @return {@code true} if the first video frame is rendered since the initialization.
+     */
+    boolean isFirstFrameRendered();
+
+    /**
+     * Set a listener to be called when the values above may have changed. {@code null} to clear.
+     */
+    void setOnReadinessChangedListener(@Nullable OnReadinessChangedListener listener);
+  }
+
+  interface OnReadinessChangedListener {
+
+    void onReadinessChanged(@NonNull ToroPlayer player);
+  }
+
   interface OnVolumeChangeListener {
 
     void onVolumeChanged(@NonNull VolumeInfo volumeInfo);
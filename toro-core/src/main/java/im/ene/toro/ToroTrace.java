@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro;
+
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RestrictTo;
+
+/**
+ * Tracing of Toro's hot paths: the scroll state change, child attach and detach, adapter events
+ * of the playback info cache, and the initialize, play, pause and release of the players. The
+ * ExoPlayer extension also traces the player request and the media source preparation.
+ *
+ * Disabled by default, then each traced call only costs a static field check. Use
+ * {@code ToroTrace.setTracer(ToroTrace.SYSTRACE)} to see the sections in a systrace, for example
+ * to find Toro's share of a janky frame.
+ *
+ * @author eneim (2018/08/23).
+ */
+@SuppressWarnings("WeakerAccess") //
+public final class ToroTrace {
+
+  private ToroTrace() {
+    throw new RuntimeException("Meh!");
+  }
+
+  /**
+   * Receives the traced sections. Sections are nested, and begun and ended on the same thread.
+   */
+  public interface Tracer {
+
+    void beginSection(@NonNull String name);
+
+    void endSection();
+  }
+
+  /**
+   * A {@link Tracer} that emits {@link Trace} sections. Does nothing before API 18.
+   */
+  public static final Tracer SYSTRACE = new Tracer() {
+    @Override public void beginSection(@NonNull String name) {
+      if (Build.VERSION.SDK_INT >= 18) Trace.beginSection(name);
+    }
+
+    @Override public void endSection() {
+      if (Build.VERSION.SDK_INT >= 18) Trace.endSection();
+    }
+  };
+
+  // Traced calls happen on main thread, and so does the setup.
+  private static Tracer tracer = null;  // null = disabled.
+
+  /**
+   * Set the {@link Tracer} to use, for example {@link #SYSTRACE}. Must not be called from a traced
+   * call, so that the sections stay paired.
+   *
+   * @param tracer the tracer, or {@code null} to disable the tracing (default).
+   */
+  @MainThread public static void setTracer(@Nullable Tracer tracer) {
+    ToroTrace.tracer = tracer;
+  }
+
+  public static boolean isEnabled() {
+    return tracer != null;
+  }
+
+  /**
+   * Begin a section. Section names should be constants, so a disabled tracing allocates nothing.
+   * For use inside library only.
+   */
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
+  public static void beginSection(@NonNull String name) {
+    if (tracer != null) tracer.beginSection(name);
+  }
+
+  /**
+   * End the last begun section. For use inside library only.
+   */
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
+  public static void endSection() {
+    if (tracer != null) tracer.endSection();
+  }
+}
@@ -22,6 +22,7 @@ import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
 import android.support.design.widget.CoordinatorLayout;
 import android.support.design.widget.CoordinatorLayout.LayoutParams;
+import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
@@ -50,6 +51,11 @@ public final class ToroUtil {
   @FloatRange(from = 0.0, to = 1.0) //
   public static float visibleAreaOffset(@NonNull ToroPlayer player, ViewParent container) {
     if (container == null) return 0.0f;
+    // A Container keeps a snapshot of its players' visible area, shared in one frame.
+    if (container instanceof Container && player instanceof RecyclerView.ViewHolder
+        && ((RecyclerView.ViewHolder) player).itemView.getParent() == container) {
+      return ((Container) container).getVisibleAreaOffset(player);
+    }
 
     View playerView = player.getPlayerView();
     Rect drawRect = new Rect();
@@ -22,6 +22,7 @@ import android.os.Message;
 import android.support.annotation.CallSuper;
 import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.ToroPlayer.EventListener;
 import im.ene.toro.ToroPlayer.OnVolumeChangeListener;
@@ -33,6 +34,8 @@ import im.ene.toro.widget.Container;
 import java.util.HashSet;
 
 import static im.ene.toro.ToroUtil.checkNotNull;
+import static im.ene.toro.widget.PlaybackMetrics.EVENT_BUFFERING;
+import static im.ene.toro.widget.PlaybackMetrics.EVENT_READY;
 
 /**
  * General definition of a helper class for a specific {@link ToroPlayer}. This class helps
@@ -54,12 +57,16 @@ public abstract class ToroPlayerHelper {
           // TODO: deal with idle state, maybe error handling.
           break;
         case State.STATE_BUFFERING /* Player.STATE_BUFFERING */:
+          if (container != null) {
+            container.recordPlaybackEvent(player, EVENT_BUFFERING, playWhenReady ? 1 : 0);
+          }
           internalListener.onBuffering();
           for (EventListener callback : eventListeners) {
             callback.onBuffering();
           }
           break;
         case State.STATE_READY /*  Player.STATE_READY */:
+          if (container != null) container.recordPlaybackEvent(player, EVENT_READY, 0);
           if (playWhenReady) {
             internalListener.onPlaying();
           } else {
@@ -100,6 +107,7 @@ public abstract class ToroPlayerHelper {
 
     @Override public void onPlaying() {
       player.getPlayerView().setKeepScreenOn(true);
+      if (container != null) container.onPlayerPlaying(player);
     }
 
     @Override public void onPaused() {
@@ -149,6 +157,44 @@ public abstract class ToroPlayerHelper {
     this.initialize(playbackInfo);
   }
 
+  /**
+   * Prepare the media resource ahead of the playback, after the initialization. A
+   * {@link ToroPlayer.Prewarmable} can forward its call here. Does nothing by default.
+   */
+  public void prewarm() {
+  }
+
+  private ToroPlayer.OnReadinessChangedListener readinessListener;
+
+  /**
+   * See {@link ToroPlayer.ReadinessAware#getBufferedDurationMs()}. Returns 0 by default.
+   */
+  public long getBufferedDurationMs() {
+    return 0;
+  }
+
+  /**
+   * See {@link ToroPlayer.ReadinessAware#isFirstFrameRendered()}. Returns false by default.
+   */
+  public boolean isFirstFrameRendered() {
+    return false;
+  }
+
+  /**
+   * See {@link ToroPlayer.ReadinessAware#setOnReadinessChangedListener}.
+   */
+  public void setOnReadinessChangedListener(
+      @Nullable ToroPlayer.OnReadinessChangedListener listener) {
+    this.readinessListener = listener;
+  }
+
+  /**
+   * Sub class calls this when the buffered duration or the first frame state may have changed.
+   */
+  protected final void onReadinessChanged() {
+    if (readinessListener != null) readinessListener.onReadinessChanged(player);
+  }
+
   public abstract void play();
 
   public abstract void pause();
@@ -191,6 +237,7 @@ public abstract class ToroPlayerHelper {
 
   @CallSuper public void release() {
     handler.removeCallbacksAndMessages(null);
+    this.readinessListener = null;
     this.container = null;
   }
 
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.media;
+
+import android.content.Context;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link PlaybackInfoStore} backed by an append-only file.
+ *
+ * Each save or remove is a small binary record appended to the file. Saves are only put in memory
+ * on the calling thread, and written in batches by a background thread, at most once per
+ * {@link #FLUSH_DELAY_MS}. The file is read once, on the first lookup (or ahead of time using
+ * {@link #preload()}), and is compacted on the background thread when it contains too many
+ * outdated records.
+ *
+ * Keys are stored using {@link String#valueOf(Object)}, so their string forms must be stable
+ * across process restarts and unique. This class is thread-safe, and a single instance should be
+ * used for one file.
+ *
+ * @author eneim (2018/08/14).
+ */
+@SuppressWarnings("WeakerAccess") //
+public final class FilePlaybackInfoStore implements PlaybackInfoStore {
+
+  private static final String TAG = "ToroLib:InfoStore";
+
+  static final String DEFAULT_FILE_NAME = "toro_playback_info";
+  public static final long FLUSH_DELAY_MS = 1000;
+
+  private static final int MAGIC = 0x546f726f;  // "Toro"
+  private static final int VERSION = 1;
+  private static final byte RECORD_REMOVE = 0;
+  private static final byte RECORD_SAVE = 1;
+  private static final int COMPACT_MIN_RECORDS = 256;
+
+  @NonNull private final File file;
+  private final ScheduledExecutorService executor;
+
+  private final Object lock = new Object();
+  // Latest known value of each key, a null value marks a removed key. Guarded by lock.
+  private final HashMap<String, PlaybackInfo> entries = new HashMap<>();
+  // Changes not written to file yet. Guarded by lock.
+  private HashMap<String, PlaybackInfo> pending = new HashMap<>();
+  private boolean flushScheduled;  // Guarded by lock.
+
+  // Set once the file is read. The main thread only takes loadLock, and only until then: it never
+  // waits for the writes, which hold fileLock, as they start once the file is loaded.
+  private volatile boolean loaded;
+  private final Object loadLock = new Object();
+
+  // File states, guarded by fileLock. File I/O happens while holding it.
+  private final Object fileLock = new Object();
+  private boolean needsCompaction;
+  private int recordCount;
+
+  public FilePlaybackInfoStore(@NonNull Context context) {
+    this(new File(context.getApplicationContext().getFilesDir(), DEFAULT_FILE_NAME));
+  }
+
+  public FilePlaybackInfoStore(@NonNull File file) {
+    this.file = file;
+    this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override public Thread newThread(@NonNull Runnable runnable) {
+        Thread thread = new Thread(runnable, "toro-info-store");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Read the file on a background thread, so that the first lookup doesn't need to.
+   */
+  public void preload() {
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        ensureLoaded();
+      }
+    });
+  }
+
+  /**
+   * Write the pending changes now, on the background thread. For example when the App goes to
+   * background and may be killed.
+   */
+  public void flush() {
+    executor.execute(flushTask);
+  }
+
+  @Nullable @Override public PlaybackInfo load(@NonNull Object key) {
+    ensureLoaded();
+    PlaybackInfo info;
+    synchronized (lock) {
+      info = entries.get(String.valueOf(key));
+    }
+    return info != null ? copy(info) : null;
+  }
+
+  @Override public void save(@NonNull Object key, @NonNull PlaybackInfo playbackInfo) {
+    put(String.valueOf(key), copy(playbackInfo));
+  }
+
+  @Override public void remove(@NonNull Object key) {
+    put(String.valueOf(key), null);
+  }
+
+  private void put(String key, PlaybackInfo info) {
+    synchronized (lock) {
+      entries.put(key, info);
+      pending.put(key, info);
+      if (!flushScheduled) {
+        flushScheduled = true;
+        executor.schedule(flushTask, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private static PlaybackInfo copy(PlaybackInfo info) {
+    return new PlaybackInfo(info.getResumeWindow(), info.getResumePosition(),
+        new VolumeInfo(info.getVolumeInfo()));
+  }
+
+  private final Runnable flushTask = new Runnable() {
+    @Override public void run() {
+      Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+      HashMap<String, PlaybackInfo> batch;
+      synchronized (lock) {
+        flushScheduled = false;
+        if (pending.isEmpty()) return;
+        batch = pending;
+        pending = new HashMap<>();
+      }
+
+      ensureLoaded();
+      synchronized (fileLock) {
+        if (!needsCompaction) {
+          try {
+            append(batch);
+          } catch (IOException er) {
+            Log.w(TAG, "Failed to write to: " + file, er);
+            needsCompaction = true;  // The file may end with a broken record.
+          }
+        }
+
+        int size;
+        synchronized (lock) {
+          size = entries.size();
+        }
+        if (needsCompaction || (recordCount > COMPACT_MIN_RECORDS && recordCount > 2 * size)) {
+          compact();
+        }
+      }
+    }
+  };
+
+  private void ensureLoaded() {
+    if (loaded) return;
+    synchronized (loadLock) {
+      if (loaded) return;
+      HashMap<String, PlaybackInfo> stored = new HashMap<>();
+      synchronized (fileLock) {  // Not contended, nothing is written before the file is loaded.
+        try {
+          read(stored);
+        } catch (IOException er) {
+          Log.w(TAG, "Failed to read: " + file, er);
+          needsCompaction = true;
+        }
+      }
+
+      synchronized (lock) {
+        // Values saved before loading are newer than the stored ones.
+        for (Map.Entry<String, PlaybackInfo> entry : stored.entrySet()) {
+          if (!entries.containsKey(entry.getKey())) entries.put(entry.getKey(), entry.getValue());
+        }
+      }
+      loaded = true;
+    }
+  }
+
+  // Must hold fileLock.
+  private void read(HashMap<String, PlaybackInfo> out) throws IOException {
+    if (!file.exists() || file.length() == 0) return;
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        needsCompaction = true;  // Unknown format, rewrite it.
+        return;
+      }
+
+      int type;
+      while ((type = input.read()) >= 0) {
+        String key = input.readUTF();
+        if (type == RECORD_SAVE) {
+          int window = input.readInt();
+          long position = input.readLong();
+          boolean mute = input.readBoolean();
+          float volume = input.readFloat();
+          out.put(key, new PlaybackInfo(window, position, new VolumeInfo(mute, volume)));
+        } else {
+          out.remove(key);
+        }
+        recordCount++;
+      }
+    } catch (EOFException er) {
+      needsCompaction = true;  // The last record was not completely written.
+    } finally {
+      if (input != null) input.close();
+    }
+  }
+
+  // Must hold fileLock.
+  private void append(HashMap<String, PlaybackInfo> batch) throws IOException {
+    boolean newFile = !file.exists() || file.length() == 0;
+    DataOutputStream output = null;
+    try {
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+      if (newFile) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+      }
+      for (Map.Entry<String, PlaybackInfo> entry : batch.entrySet()) {
+        write(output, entry.getKey(), entry.getValue());
+      }
+      recordCount += batch.size();
+    } finally {
+      if (output != null) output.close();
+    }
+  }
+
+  // Must hold fileLock. Rewrite the file with the latest values only.
+  private void compact() {
+    HashMap<String, PlaybackInfo> snapshot;
+    synchronized (lock) {
+      snapshot = new HashMap<>(entries);
+    }
+
+    File temp = new File(file.getPath() + ".tmp");
+    DataOutputStream output = null;
+    int count = 0;
+    try {
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      for (Map.Entry<String, PlaybackInfo> entry : snapshot.entrySet()) {
+        if (entry.getValue() == null) continue;
+        write(output, entry.getKey(), entry.getValue());
+        count++;
+      }
+      output.close();
+      output = null;
+      if (!temp.renameTo(file)) throw new IOException("Failed to rename: " + temp);
+      recordCount = count;
+      needsCompaction = false;
+    } catch (IOException er) {
+      Log.w(TAG, "Failed to compact: " + file, er);
+      return;
+    } finally {
+      if (output != null) {
+        try {
+          output.close();
+        } catch (IOException ignored) {
+        }
+      }
+    }
+
+    // Removed keys are not in the file anymore, no need to remember them.
+    synchronized (lock) {
+      for (Map.Entry<String, PlaybackInfo> entry : snapshot.entrySet()) {
+        if (entry.getValue() == null && entries.get(entry.getKey()) == null
+            && !pending.containsKey(entry.getKey())) {
+          entries.remove(entry.getKey());
+        }
+      }
+    }
+  }
+
+  private static void write(DataOutputStream output, String key, @Nullable PlaybackInfo info)
+      throws IOException {
+    output.writeByte(info != null ? RECORD_SAVE : RECORD_REMOVE);
+    output.writeUTF(key);
+    if (info != null) {
+      output.writeInt(info.getResumeWindow());
+      output.writeLong(info.getResumePosition());
+      output.writeBoolean(info.getVolumeInfo().isMute());
+      output.writeFloat(info.getVolumeInfo().getVolume());
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.media;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import im.ene.toro.CacheManager;
+import im.ene.toro.widget.Container;
+
+/**
+ * A persistent store of {@link PlaybackInfo}, keyed by the keys obtained from
+ * {@link CacheManager#getKeyForOrder(int)}. {@link Container} looks it up when a Player is
+ * attached and there is no cached {@link PlaybackInfo} in memory, and saves to it every time a
+ * {@link PlaybackInfo} is saved. So the resume positions can survive the process death, and be
+ * shared by many {@link Container}s using the same keys.
+ *
+ * All methods are called from main thread, so implementations should not do disk I/O in
+ * {@link #save(Object, PlaybackInfo)} and {@link #remove(Object)}.
+ *
+ * @author eneim (2018/08/14).
+ * @see FilePlaybackInfoStore
+ */
+public interface PlaybackInfoStore {
+
+  /**
+   * @param key the key obtained from {@link CacheManager}.
+   * @return the stored {@link PlaybackInfo} of the key, or {@code null} if there is none.
+   */
+  @Nullable PlaybackInfo load(@NonNull Object key);
+
+  /**
+   * Store a {@link PlaybackInfo} for a key. The {@link PlaybackInfo} may be changed after this
+   * call, so implementations must copy it if they keep it.
+   *
+   * @param key the key obtained from {@link CacheManager}.
+   * @param playbackInfo the {@link PlaybackInfo} to store.
+   */
+  void save(@NonNull Object key, @NonNull PlaybackInfo playbackInfo);
+
+  /**
+   * @param key the key whose {@link PlaybackInfo} should be removed.
+   */
+  void remove(@NonNull Object key);
+}
@@ -21,11 +21,9 @@ import android.graphics.Rect;
 import android.support.annotation.NonNull;
 import android.support.annotation.RestrictTo;
 import android.support.v7.widget.RecyclerView;
+import android.view.ViewParent;
 import im.ene.toro.ToroPlayer;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.List;
 
 /**
  * @author eneim | 6/2/17.
@@ -47,11 +45,6 @@ final class Common {
     return (x < y) ? -1 : ((x == y) ? 0 : 1);
   }
 
-  static long max(Long... numbers) {
-    List<Long> list = Arrays.asList(numbers);
-    return Collections.<Long>max(list);
-  }
-
   static Comparator<ToroPlayer> ORDER_COMPARATOR = new Comparator<ToroPlayer>() {
     @Override public int compare(ToroPlayer o1, ToroPlayer o2) {
       return Common.compare(o1.getPlayerOrder(), o2.getPlayerOrder());
@@ -69,7 +62,12 @@ final class Common {
     dummyPoint.set(0, 0);
     //noinspection ConstantConditions
     boolean valid = player instanceof RecyclerView.ViewHolder;  // Should be true
-    if (valid) valid = ((RecyclerView.ViewHolder) player).itemView.getParent() != null;
+    ViewParent parent = valid ? ((RecyclerView.ViewHolder) player).itemView.getParent() : null;
+    // Read from the Container's snapshot, so that this doesn't walk to the Window every time.
+    if (parent instanceof Container) {
+      return ((Container) parent).visibilityTracker.isVisible(player);
+    }
+    valid = parent != null;
     if (valid) valid = player.getPlayerView().getGlobalVisibleRect(dummyRect, dummyPoint);
     return valid;
   }
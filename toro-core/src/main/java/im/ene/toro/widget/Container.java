@@ -29,11 +29,16 @@ import android.support.annotation.ColorInt;
 import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.RestrictTo;
 import android.support.design.widget.AppBarLayout;
 import android.support.design.widget.CollapsingToolbarLayout;
 import android.support.design.widget.CoordinatorLayout;
 import android.support.v4.view.AbsSavedState;
 import android.support.v4.view.WindowInsetsCompat;
+import android.support.v7.util.AdapterListUpdateCallback;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -41,24 +46,27 @@ import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver.OnGlobalLayoutListener;
+import android.widget.OverScroller;
 import im.ene.toro.CacheManager;
 import im.ene.toro.PlayerDispatcher;
 import im.ene.toro.PlayerSelector;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroTrace;
 import im.ene.toro.annotations.RemoveIn;
 import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.PlaybackInfoStore;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static android.content.Context.POWER_SERVICE;
 import static im.ene.toro.ToroUtil.checkNotNull;
-import static im.ene.toro.widget.Common.max;
 
 /**
  * A custom {@link RecyclerView} that is capable of managing and controlling the {@link ToroPlayer}s'
@@ -87,15 +95,19 @@ public class Container extends RecyclerView {
 
   private static final String TAG = "ToroLib:Container";
 
-  static final int SOME_BLINKS = 50;  // 3 frames ...
-
   /* package */ final PlayerManager playerManager;
   /* package */ final ChildLayoutChangeListener childLayoutChangeListener;
   /* package */ PlayerDispatcher playerDispatcher = PlayerDispatcher.DEFAULT;
   /* package */ RecyclerListenerImpl recyclerListener;  // null = not attached/detached
   /* package */ PlayerSelector playerSelector = PlayerSelector.DEFAULT;   // null = do nothing
-  /* package */ Handler animatorFinishHandler;  // null = not attached/detached
+  /* package */ final UpdateDispatcher updateDispatcher;
   /* package */ BehaviorCallback behaviorCallback;
+  /* package */ final VisibilityTracker visibilityTracker;
+  /* package */ final PrewarmWindow prewarmWindow = new PrewarmWindow();
+  /* package */ final SwitchGate switchGate = new SwitchGate(this);
+  /* package */ final MetricsRecorder metricsRecorder = new MetricsRecorder(this);
+  /* package */ PlaybackWindowListener playbackWindowListener;
+  /* package */ int playbackAnchor = NO_POSITION;  // last anchor sent to the listener.
 
   public Container(Context context) {
     this(context, null);
@@ -107,8 +119,10 @@ public class Container extends RecyclerView {
 
   public Container(Context context, @Nullable AttributeSet attrs, int defStyle) {
     super(context, attrs, defStyle);
-    playerManager = new PlayerManager();
+    playerManager = new PlayerManager(metricsRecorder);
     childLayoutChangeListener = new ChildLayoutChangeListener(this);
+    visibilityTracker = new VisibilityTracker(this);
+    updateDispatcher = new UpdateDispatcher(this);
     requestDisallowInterceptTouchEvent(true);
   }
 
@@ -121,9 +135,7 @@ public class Container extends RecyclerView {
   @CallSuper @Override protected void onAttachedToWindow() {
     super.onAttachedToWindow();
     if (getAdapter() != null) dataObserver.registerAdapter(getAdapter());
-    if (animatorFinishHandler == null) {
-      animatorFinishHandler = new Handler(new AnimatorHelper(this));
-    }
+    updateDispatcher.onAttach();
 
     PowerManager powerManager = (PowerManager) getContext().getSystemService(POWER_SERVICE);
     if (powerManager != null && powerManager.isScreenOn()) {
@@ -141,6 +153,7 @@ public class Container extends RecyclerView {
 
     playbackInfoCache.onAttach();
     playerManager.onAttach();
+    visibilityTracker.onAttach();
 
     ViewGroup.LayoutParams params = getLayoutParams();
     if (params instanceof CoordinatorLayout.LayoutParams) {
@@ -166,10 +179,7 @@ public class Container extends RecyclerView {
       recyclerListener = null;
     }
 
-    if (animatorFinishHandler != null) {
-      animatorFinishHandler.removeCallbacksAndMessages(null);
-      animatorFinishHandler = null;
-    }
+    updateDispatcher.onDetach();
 
     List<ToroPlayer> players = playerManager.getPlayers();
     if (!players.isEmpty()) {
@@ -185,6 +195,13 @@ public class Container extends RecyclerView {
     }
     playerManager.onDetach();
     playbackInfoCache.onDetach();
+    visibilityTracker.onDetach();
+    prewarmWindow.clear();
+    switchGate.clear();
+    metricsRecorder.clear();
+    playbackAnchor = NO_POSITION;
+    pendingAttaches.clear();
+    clearPrediction();
     dataObserver.registerAdapter(null);
     childLayoutChangeListener.containerRef.clear();
   }
@@ -198,10 +215,10 @@ public class Container extends RecyclerView {
    */
   @NonNull public final List<ToroPlayer> filterBy(Filter filter) {
     List<ToroPlayer> result = new ArrayList<>();
+    // Already sorted by order.
     for (ToroPlayer player : playerManager.getPlayers()) {
       if (filter.accept(player)) result.add(player);
     }
-    Collections.sort(result, Common.ORDER_COMPARATOR);
     return result;
   }
 
@@ -212,10 +229,20 @@ public class Container extends RecyclerView {
   // In either cases, PlayerManager should not manage the ViewHolder before this point.
   @CallSuper @Override public void onChildAttachedToWindow(final View child) {
     super.onChildAttachedToWindow(child);
-    child.addOnLayoutChangeListener(childLayoutChangeListener);
+    ToroTrace.beginSection("Toro:onChildAttached");
+    try {
+      handleChildAttached(child);
+    } finally {
+      ToroTrace.endSection();
+    }
+  }
+
+  private void handleChildAttached(final View child) {
+    visibilityTracker.invalidate();
     final ViewHolder holder = getChildViewHolder(child);
     if (!(holder instanceof ToroPlayer)) return;
 
+    child.addOnLayoutChangeListener(childLayoutChangeListener);
     final ToroPlayer player = (ToroPlayer) holder;
     final View playerView = player.getPlayerView();
     if (playerView == null) {
@@ -228,29 +255,32 @@ public class Container extends RecyclerView {
       Log.w(TAG, "!!Already managed: player = [" + player + "]");
       // Only if container is in idle state and player is not playing.
       if (getScrollState() == SCROLL_STATE_IDLE && !player.isPlaying()) {
-        playerManager.play(player, playerDispatcher.getDelayToPlay(player));
+        playerManager.play(player, playerDispatcher);
       }
-    } else {
-      child.getViewTreeObserver().addOnGlobalLayoutListener(new OnGlobalLayoutListener() {
-        @Override public void onGlobalLayout() {
-          child.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-          if (Common.allowsToPlay(player)) {
-            if (playerManager.attachPlayer(player)) {
-              dispatchUpdateOnAnimationFinished(false);
-            }
-          }
-        }
-      });
+    } else if (!pendingAttaches.contains(player)) {
+      // Wait for the child to be laid out, see #onLayout.
+      pendingAttaches.add(player);
     }
   }
 
   @CallSuper @Override public void onChildDetachedFromWindow(View child) {
     super.onChildDetachedFromWindow(child);
-    child.removeOnLayoutChangeListener(childLayoutChangeListener);
+    ToroTrace.beginSection("Toro:onChildDetached");
+    try {
+      handleChildDetached(child);
+    } finally {
+      ToroTrace.endSection();
+    }
+  }
+
+  private void handleChildDetached(View child) {
+    visibilityTracker.invalidate();
     ViewHolder holder = getChildViewHolder(child);
     //noinspection PointlessNullCheck
     if (holder == null || !(holder instanceof ToroPlayer)) return;
+    child.removeOnLayoutChangeListener(childLayoutChangeListener);
     final ToroPlayer player = (ToroPlayer) holder;
+    pendingAttaches.remove(player);
 
     boolean playerManaged = playerManager.manages(player);
     if (player.isPlaying()) {
@@ -265,29 +295,216 @@ public class Container extends RecyclerView {
       playerManager.detachPlayer(player);
     }
     playbackInfoCache.onPlayerDetached(player);
+    visibilityTracker.onPlayerDetached(player);
+    prewarmWindow.onPlayerReleased(player);
+    switchGate.onPlayerReleased(player);
+    predictedPlayers.remove(player);
     // RecyclerView#onChildDetachedFromWindow(View) is called after other removal finishes, so
     // sometime it happens after all Animation, but we also need to update playback here.
     // If there is no anymore child view, this call will end early.
-    dispatchUpdateOnAnimationFinished(true);
-    // finally release the player
+    dispatchUpdateOnAnimationFinished();
+    // finally release the player, or keep it warm for a while if enabled.
     // if player manager could not manager player, release by itself.
-    if (!playerManager.release(player)) player.release();
+    if (!playerManager.park(player, playbackInfoCache.getKey(player.getPlayerOrder()))) {
+      if (!playerManager.release(player)) player.release();
+    }
+  }
+
+  // Players attached to Window, waiting for the layout before they can be checked.
+  private final ArrayList<ToroPlayer> pendingAttaches = new ArrayList<>();
+
+  @CallSuper @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    super.onLayout(changed, l, t, r, b);
+    visibilityTracker.invalidate();
+    updateDispatcher.onLayout();
+    if (pendingAttaches.isEmpty()) return;
+    // One pass for all the players attached before this layout.
+    boolean attached = false;
+    for (int i = 0, size = pendingAttaches.size(); i < size; i++) {
+      ToroPlayer player = pendingAttaches.get(i);
+      if (Common.allowsToPlay(player) && playerManager.attachPlayer(player)) attached = true;
+    }
+    pendingAttaches.clear();
+    if (attached) dispatchUpdateOnAnimationFinished();
   }
 
+  @CallSuper @Override public void onScrolled(int dx, int dy) {
+    super.onScrolled(dx, dy);
+    visibilityTracker.invalidate();
+    if (prewarmWindow.isEnabled() || playbackWindowListener != null) {
+      LayoutManager layout = super.getLayoutManager();
+      boolean horizontal = layout != null && layout.canScrollHorizontally();
+      boolean reverse = layout instanceof LinearLayoutManager //
+          && ((LinearLayoutManager) layout).getReverseLayout();
+      int delta = horizontal ? dx : dy;
+      int direction = prewarmWindow.direction;
+      prewarmWindow.onScrolled(reverse ? -delta : delta);
+      // Let the listener drop its work behind the user quickly.
+      if (prewarmWindow.direction != direction && playbackWindowListener != null
+          && playbackAnchor != NO_POSITION) {
+        playbackWindowListener.onPlaybackWindowChanged(this, playbackAnchor,
+            prewarmWindow.direction);
+      }
+    }
+    if (predictedFrom != NO_POSITION && getScrollState() == SCROLL_STATE_SETTLING) {
+      initializePredictedPlayers();
+    }
+  }
+
+  @Override public boolean fling(int velocityX, int velocityY) {
+    boolean fling = super.fling(velocityX, velocityY);
+    if (fling && predictiveFling) predictFlingTarget(velocityX, velocityY);
+    return fling;
+  }
+
+  ////// Predictive fling
+
+  /* package */ boolean predictiveFling = false;
+  private OverScroller flingScroller; // only used to compute the fling distance, never animated.
+  // Range of Adapter positions expected to be visible once the fling ends.
+  private int predictedFrom = NO_POSITION;
+  private int predictedTo = NO_POSITION;
+  private final ArrayList<ToroPlayer> predictedPlayers = new ArrayList<>();
+
+  /**
+   * Enable or disable the predictive mode. In this mode, when a fling starts the Container
+   * estimates which Adapter positions will be visible once it stops, and initializes the
+   * {@link ToroPlayer}s at those positions as soon as they are laid out, while the fling is still
+   * running. The selection still happens when the Container is idle, but the selected player is
+   * then already initialized.
+   *
+   * The estimation assumes the items have similar sizes, and does not account for a
+   * {@link OnFlingListener} like SnapHelper which changes the fling target.
+   *
+   * @param enabled {@code true} to enable the predictive mode. It is disabled by default.
+   */
+  public final void setPredictiveFlingEnabled(boolean enabled) {
+    this.predictiveFling = enabled;
+    if (!enabled) clearPrediction();
+  }
+
+  public final boolean isPredictiveFlingEnabled() {
+    return predictiveFling;
+  }
+
+  private void predictFlingTarget(int velocityX, int velocityY) {
+    clearPrediction();
+    LayoutManager layout = super.getLayoutManager();
+    int childCount = layout != null ? layout.getChildCount() : 0;
+    int itemCount = layout != null ? layout.getItemCount() : 0;
+    if (childCount <= 0 || itemCount <= 0) return;
+
+    boolean vertical = layout.canScrollVertically();
+    int velocity = vertical ? velocityY : velocityX;
+    int maxVelocity = getMaxFlingVelocity();
+    velocity = Math.max(-maxVelocity, Math.min(velocity, maxVelocity));
+    if (velocity == 0) return;
+
+    // Same math as the RecyclerView's scroller, so the final position is the same.
+    if (flingScroller == null) flingScroller = new OverScroller(getContext());
+    flingScroller.fling(0, 0, vertical ? 0 : velocity, vertical ? velocity : 0, //
+        Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    int distance = vertical ? flingScroller.getFinalY() : flingScroller.getFinalX();
+    flingScroller.forceFinished(true);
+
+    // Estimate the number of items scrolled through, using the size of the laid out children.
+    int minPosition = Integer.MAX_VALUE, maxPosition = NO_POSITION;
+    int start = Integer.MAX_VALUE, end = Integer.MIN_VALUE;
+    for (int i = 0; i < childCount; i++) {
+      View child = layout.getChildAt(i);
+      int position = layout.getPosition(child);
+      if (position == NO_POSITION) continue;
+      minPosition = Math.min(minPosition, position);
+      maxPosition = Math.max(maxPosition, position);
+      start = Math.min(start, vertical ? layout.getDecoratedTop(child) : //
+          layout.getDecoratedLeft(child));
+      end = Math.max(end, vertical ? layout.getDecoratedBottom(child) : //
+          layout.getDecoratedRight(child));
+    }
+    if (maxPosition == NO_POSITION || end <= start) return;
+
+    int shift = Math.round(distance * (maxPosition - minPosition + 1) / (float) (end - start));
+    boolean reverse = layout instanceof LinearLayoutManager //
+        && ((LinearLayoutManager) layout).getReverseLayout();
+    if (reverse) shift = -shift;
+    predictedFrom = Math.max(0, Math.min(minPosition + shift, itemCount - 1));
+    predictedTo = Math.max(0, Math.min(maxPosition + shift, itemCount - 1));
+    initializePredictedPlayers();
+  }
+
+  // Initialize the players laid out in the predicted range, once for each.
+  private void initializePredictedPlayers() {
+    LayoutManager layout = super.getLayoutManager();
+    int childCount = layout != null ? layout.getChildCount() : 0;
+    for (int i = 0; i < childCount; i++) {
+      ViewHolder holder = super.getChildViewHolder(layout.getChildAt(i));
+      if (!(holder instanceof ToroPlayer)) continue;
+      ToroPlayer player = (ToroPlayer) holder;
+      int order = player.getPlayerOrder();
+      if (order < predictedFrom || order > predictedTo) continue;
+      if (predictedPlayers.contains(player) || !Common.allowsToPlay(player)) continue;
+      if (!playerManager.manages(player)) playerManager.attachPlayer(player);
+      if (!player.isPlaying()) playerManager.initialize(player, this);
+      predictedPlayers.add(player);
+    }
+  }
+
+  private void clearPrediction() {
+    predictedFrom = NO_POSITION;
+    predictedTo = NO_POSITION;
+    predictedPlayers.clear();
+  }
+
+  /**
+   * Get the ratio in range of 0.0 ~ 1.0 the visible area of a {@link ToroPlayer}'s playerView in
+   * this Container. The value is computed at most once per frame, and is shared by all callers in
+   * between. Returns 0.0f if the player is not a child of this Container.
+   *
+   * @param player the {@link ToroPlayer} need to investigate.
+   * @return the value in range of 0.0 ~ 1.0 of the visible area.
+   */
+  @FloatRange(from = 0.0, to = 1.0) //
+  public final float getVisibleAreaOffset(@NonNull ToroPlayer player) {
+    return visibilityTracker.visibleAreaOffset(player);
+  }
+
+  // Reusable buffer for the candidates of a selection pass, so that a pass allocates nothing.
+  private final ArrayList<ToroPlayer> candidates = new ArrayList<>();
+  // Reusable set of the selected players, so the pause loop doesn't search the selection for
+  // each player. IdentityHashMap has no entry objects, so filling it allocates nothing either.
+  private final Set<ToroPlayer> selectedPlayers =
+      Collections.newSetFromMap(new IdentityHashMap<ToroPlayer, Boolean>());
+
   @CallSuper @Override public void onScrollStateChanged(int state) {
     super.onScrollStateChanged(state);
+    ToroTrace.beginSection("Toro:onScrollStateChanged");
+    try {
+      handleScrollStateChanged(state);
+    } finally {
+      ToroTrace.endSection();
+    }
+  }
+
+  private void handleScrollStateChanged(int state) {
+    // A prediction is only valid for the fling it was made for.
+    if (state != SCROLL_STATE_SETTLING) clearPrediction();
     // Need to handle the dead playback even when the Container is still scrolling/flinging.
-    List<ToroPlayer> players = playerManager.getPlayers();
+    List<ToroPlayer> players = playerManager.getSortedPlayers();
     // 1. Find players those are managed but not qualified to play anymore.
-    for (int i = 0, size = players.size(); i < size; i++) {
+    // Iterate backward, as detaching a player removes it from the list.
+    for (int i = players.size() - 1; i >= 0; i--) {
       ToroPlayer player = players.get(i);
       if (Common.allowsToPlay(player)) continue;
       if (player.isPlaying()) {
         savePlaybackInfo(player.getPlayerOrder(), checkNotNull(player.getCurrentPlaybackInfo()));
         playerManager.pause(player);
       }
-      if (!playerManager.release(player)) player.release();
+      if (!playerManager.park(player, playbackInfoCache.getKey(player.getPlayerOrder()))) {
+        if (!playerManager.release(player)) player.release();
+      }
       playerManager.detachPlayer(player);
+      prewarmWindow.onPlayerReleased(player);
+      switchGate.onPlayerReleased(player);
     }
 
     // 2. Refresh the good players list.
@@ -299,6 +516,8 @@ public class Container extends RecyclerView {
       return;
     }
 
+    // All the laid out players are checked below, no need to wait for the next layout.
+    pendingAttaches.clear();
     for (int i = 0; i < childCount; i++) {
       View child = layout.getChildAt(i);
       ViewHolder holder = super.getChildViewHolder(child);
@@ -317,31 +536,220 @@ public class Container extends RecyclerView {
       }
     }
 
-    final List<ToroPlayer> source = playerManager.getPlayers();
+    // Sorted by order already.
+    final List<ToroPlayer> source = playerManager.getSortedPlayers();
     int count = source.size();
     if (count < 1) return;  // No available player, return.
 
-    List<ToroPlayer> candidates = new ArrayList<>();
+    candidates.clear();
     for (int i = 0; i < count; i++) {
       ToroPlayer player = source.get(i);
       if (player.wantsToPlay()) candidates.add(player);
     }
-    Collections.sort(candidates, Common.ORDER_COMPARATOR);
 
     Collection<ToroPlayer> toPlay = playerSelector != null ? playerSelector.select(this, candidates)
         : Collections.<ToroPlayer>emptyList();
-    for (ToroPlayer player : toPlay) {
-      if (!player.isPlaying()) playerManager.play(player, playerDispatcher.getDelayToPlay(player));
+    if (toPlay instanceof List && toPlay instanceof RandomAccess) {
+      List<ToroPlayer> selected = (List<ToroPlayer>) toPlay;
+      for (int i = 0, size = selected.size(); i < size; i++) startSelected(selected.get(i));
+    } else {
+      for (ToroPlayer player : toPlay) startSelected(player);
     }
 
-    source.removeAll(toPlay);
-    // Now 'source' contains only ones need to be paused.
-    for (ToroPlayer player : source) {
-      if (player.isPlaying()) {
-        savePlaybackInfo(player.getPlayerOrder(), checkNotNull(player.getCurrentPlaybackInfo()));
-        playerManager.pause(player);
+    // Now pause the ones those are not selected, or let them play until the switch ends.
+    for (int i = 0; i < count; i++) {
+      ToroPlayer player = source.get(i);
+      if (selectedPlayers.contains(player)) continue;
+      if (!player.isPlaying()) {
+        playerManager.cancelPlay(player);
+      } else if (!switchGate.deferPause(player)) {
+        pausePlayer(player);
       }
     }
+
+    // Finally prepare the next ones, in the scroll direction.
+    prewarmWindow.update(this, toPlay);
+    // Before the clear: the built-in selectors return the candidate list itself.
+    if (playbackWindowListener != null) dispatchPlaybackWindow(toPlay);
+    candidates.clear();
+    selectedPlayers.clear();
+  }
+
+  private void startSelected(@NonNull ToroPlayer player) {
+    selectedPlayers.add(player);
+    switchGate.onPlayerSelected(player);
+    if (!player.isPlaying() && !playerManager.isWaitingToPlay(player)) {
+      prewarmWindow.onPlayerStarting(player);
+      playerManager.play(player, playerDispatcher);
+    }
+  }
+
+  // The anchor is the farthest selected player in the scroll direction.
+  private void dispatchPlaybackWindow(@NonNull Collection<ToroPlayer> selected) {
+    int direction = prewarmWindow.direction;
+    int anchor = NO_POSITION;
+    for (ToroPlayer player : selected) {
+      int order = player.getPlayerOrder();
+      if (anchor == NO_POSITION || (direction > 0 ? order > anchor : order < anchor)) {
+        anchor = order;
+      }
+    }
+    if (anchor == NO_POSITION) return;  // Keep the previous one.
+    playbackAnchor = anchor;
+    playbackWindowListener.onPlaybackWindowChanged(this, anchor, direction);
+  }
+
+  /**
+   * Receive the position of the playback in the Adapter, and the scroll direction. The listener is
+   * called after each selection which selects some players, and when the scroll direction changes.
+   * This can be used to load the media of the next items ahead of time.
+   *
+   * @param listener the listener, or {@code null} to remove the current one.
+   */
+  public final void setPlaybackWindowListener(@Nullable PlaybackWindowListener listener) {
+    this.playbackWindowListener = listener;
+    if (listener == null) playbackAnchor = NO_POSITION;
+  }
+
+  /**
+   * Setup the pre-warm window. After each selection, the Container initializes up to
+   * {@code size} {@link ToroPlayer}s next to the selected ones in the scroll direction, and asks
+   * them to prepare their media if they implement {@link ToroPlayer.Prewarmable}. Only the players
+   * laid out by the LayoutManager can be pre-warmed.
+   *
+   * @param size number of players to pre-warm ahead of the selected ones. 0 to disable.
+   * @param budget max number of players those are pre-warmed at the same time.
+   */
+  public final void setPrewarmWindow(int size, int budget) {
+    if (size < 0 || budget < 0) throw new IllegalArgumentException("Negative size or budget.");
+    prewarmWindow.size = size;
+    prewarmWindow.budget = budget;
+    if (!prewarmWindow.isEnabled()) prewarmWindow.clear();
+  }
+
+  /**
+   * Keep the {@link ToroPlayer}s those leave the viewport warm for a while, instead of releasing
+   * them right away. If the same ViewHolder comes back for the same order or cache key before it
+   * is evicted, its resource (for example the decoder and buffered data) is reused. A player is
+   * released when it is evicted: there are more than {@code maxCount} of them, it has been kept
+   * for {@code durationMillis}, or its ViewHolder is recycled.
+   *
+   * @param maxCount max number of players kept warm. 0 to disable (default).
+   * @param durationMillis max time a player is kept warm, in milliseconds. 0 to disable.
+   */
+  public final void setKeepWarm(int maxCount, long durationMillis) {
+    if (maxCount < 0 || durationMillis < 0) {
+      throw new IllegalArgumentException("Negative count or duration.");
+    }
+    playerManager.setKeepWarm(maxCount, durationMillis);
+  }
+
+  /**
+   * @return number of started players those were pre-warmed.
+   */
+  public final int getPrewarmHitCount() {
+    return prewarmWindow.hitCount;
+  }
+
+  /**
+   * @return number of started players those were not pre-warmed, while pre-warm is enabled.
+   */
+  public final int getPrewarmMissCount() {
+    return prewarmWindow.missCount;
+  }
+
+  /**
+   * @return number of pre-warmed players those were released without being started.
+   */
+  public final int getPrewarmWastedCount() {
+    return prewarmWindow.wastedCount;
+  }
+
+  /**
+   * Keep the playing {@link ToroPlayer}s those are not selected anymore playing, until one of the
+   * newly selected ones actually plays, or until {@code maxWaitMillis} passes. This avoids a blank
+   * gap while the new player buffers. A player using {@link im.ene.toro.helper.ToroPlayerHelper}
+   * plays once it reports {@link ToroPlayer.State#STATE_READY} while it should play. Both players
+   * may be audible in between, so this fits muted playback best.
+   *
+   * @param maxWaitMillis max time to keep the old players playing, in milliseconds. 0 to disable
+   * (default).
+   */
+  public final void setGatedSwitching(long maxWaitMillis) {
+    if (maxWaitMillis < 0) throw new IllegalArgumentException("Negative wait: " + maxWaitMillis);
+    switchGate.maxWait = maxWaitMillis;
+    if (!switchGate.isEnabled()) switchGate.clear();
+  }
+
+  /**
+   * @return number of players those started playing while gated switching is enabled.
+   */
+  public final int getSwitchCount() {
+    return switchGate.switchCount;
+  }
+
+  /**
+   * @return number of switches those were ended by the max wait.
+   */
+  public final int getSwitchTimeoutCount() {
+    return switchGate.timeoutCount;
+  }
+
+  /**
+   * @return average time from the play request of a player to its actual playback, in
+   * milliseconds, while gated switching is enabled. 0 if there was no switch.
+   */
+  public final long getAverageSwitchLatencyMillis() {
+    return switchGate.switchCount > 0 ? switchGate.totalLatency / switchGate.switchCount : 0;
+  }
+
+  /**
+   * @return longest time from the play request of a player to its actual playback, in
+   * milliseconds, while gated switching is enabled.
+   */
+  public final long getMaxSwitchLatencyMillis() {
+    return switchGate.maxLatency;
+  }
+
+  /**
+   * Called by {@link im.ene.toro.helper.ToroPlayerHelper} once its player actually plays. For use
+   * inside library only.
+   *
+   * @param player the {@link ToroPlayer} that is playing.
+   */
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
+  public final void onPlayerPlaying(@NonNull ToroPlayer player) {
+    switchGate.onPlayerPlaying(player);
+  }
+
+  /**
+   * Receive the {@link PlaybackMetrics} of each playback session of the players in this
+   * {@link Container}: a session starts when the Container asks a player to play, and ends when it
+   * pauses or releases the player. The players using {@link im.ene.toro.helper.ToroPlayerHelper}
+   * report the buffering and first frame events, other ones only have the timing of the sessions.
+   *
+   * @param listener the listener, or {@code null} to stop the recording (default).
+   */
+  public final void setPlaybackMetricsListener(@Nullable PlaybackMetrics.Listener listener) {
+    metricsRecorder.setListener(listener);
+  }
+
+  /**
+   * Called by the player helpers to report a playback event of their player. For use inside
+   * library only.
+   *
+   * @param player the {@link ToroPlayer} of the event.
+   * @param event one of the PlaybackMetrics EVENT_* values.
+   * @param value value of the event, if any.
+   */
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
+  public final void recordPlaybackEvent(@NonNull ToroPlayer player, int event, long value) {
+    metricsRecorder.onEvent(player, event, value);
+  }
+
+  void pausePlayer(@NonNull ToroPlayer player) {
+    savePlaybackInfo(player.getPlayerOrder(), checkNotNull(player.getCurrentPlaybackInfo()));
+    playerManager.pause(player);
   }
 
   /**
@@ -353,7 +761,7 @@ public class Container extends RecyclerView {
   public final void setPlayerSelector(@Nullable PlayerSelector playerSelector) {
     if (this.playerSelector == playerSelector) return;
     this.playerSelector = playerSelector;
-    // dispatchUpdateOnAnimationFinished(true); // doesn't work well :(
+    // dispatchUpdateOnAnimationFinished(); // doesn't work well :(
     // Immediately update.
     this.onScrollStateChanged(SCROLL_STATE_IDLE);
   }
@@ -378,27 +786,74 @@ public class Container extends RecyclerView {
 
   ////// Handle update after data change animation
 
-  long getMaxAnimationDuration() {
-    ItemAnimator animator = getItemAnimator();
-    if (animator == null) return SOME_BLINKS;
-    return max(animator.getAddDuration(), animator.getMoveDuration(), animator.getRemoveDuration(),
-        animator.getChangeDuration());
-  }
-
-  void dispatchUpdateOnAnimationFinished(boolean immediate) {
-    if (getScrollState() != SCROLL_STATE_IDLE) return;
-    if (animatorFinishHandler == null) return;
-    final long duration = immediate ? SOME_BLINKS : getMaxAnimationDuration();
-    if (getItemAnimator() != null) {
-      getItemAnimator().isRunning(new ItemAnimator.ItemAnimatorFinishedListener() {
-        @Override public void onAnimationsFinished() {
-          animatorFinishHandler.removeCallbacksAndMessages(null);
-          animatorFinishHandler.sendEmptyMessageDelayed(-1, duration);
-        }
-      });
-    } else {
-      animatorFinishHandler.removeCallbacksAndMessages(null);
-      animatorFinishHandler.sendEmptyMessageDelayed(-1, duration);
+  // Requests are coalesced, so that at most one selection pass happens per frame.
+  void dispatchUpdateOnAnimationFinished() {
+    updateDispatcher.dispatchUpdate();
+  }
+
+  /**
+   * @return number of update requests (from data changes, layout changes, ...) those were merged
+   * into an already pending selection pass.
+   */
+  public final int getCoalescedUpdateCount() {
+    return updateDispatcher.coalescedCount;
+  }
+
+  /**
+   * @return number of selection passes executed for the update requests.
+   */
+  public final int getExecutedUpdateCount() {
+    return updateDispatcher.executedCount;
+  }
+
+  /**
+   * Start a batch of Adapter changes. Until the matching {@link #endBatchUpdate()}, the Adapter
+   * events are only recorded by this {@link Container}. Once the batch ends, the
+   * {@link PlaybackInfo} caches are migrated in one go, and a single update is requested. Batches
+   * can be nested.
+   *
+   * Both calls must happen on main thread, and no layout should happen in between. For example:
+   * around the {@code notifyItem*()} calls made by {@link DiffUtil.DiffResult#dispatchUpdatesTo}.
+   */
+  public final void beginBatchUpdate() {
+    playbackInfoCache.beginBatch();
+  }
+
+  /**
+   * End a batch started by {@link #beginBatchUpdate()}.
+   */
+  public final void endBatchUpdate() {
+    if (playbackInfoCache.endBatch()) dispatchUpdateOnAnimationFinished();
+  }
+
+  /**
+   * Dispatch the changes of a {@link DiffUtil.DiffResult} to the {@link Adapter} of this
+   * {@link Container}, as one batch (see {@link #beginBatchUpdate()}).
+   *
+   * @param result the {@link DiffUtil.DiffResult} calculated for the {@link Adapter}'s data.
+   */
+  public final void dispatchUpdates(@NonNull DiffUtil.DiffResult result) {
+    Adapter adapter = getAdapter();
+    if (adapter == null) throw new IllegalStateException("Container has no Adapter.");
+    dispatchUpdates(result, new AdapterListUpdateCallback(adapter));
+  }
+
+  /**
+   * Same as {@link #dispatchUpdates(DiffUtil.DiffResult)}, using a custom
+   * {@link ListUpdateCallback}. The callback is expected to notify the {@link Adapter} of this
+   * {@link Container}, for example with position offsets for the headers.
+   *
+   * @param result the {@link DiffUtil.DiffResult} to dispatch.
+   * @param callback the {@link ListUpdateCallback} to dispatch the changes to.
+   */
+  public final void dispatchUpdates(@NonNull DiffUtil.DiffResult result,
+      @NonNull ListUpdateCallback callback) {
+    checkNotNull(callback);
+    beginBatchUpdate();
+    try {
+      result.dispatchUpdatesTo(callback);
+    } finally {
+      endBatchUpdate();
     }
   }
 
@@ -414,6 +869,8 @@ public class Container extends RecyclerView {
    * See {@link Adapter#unregisterAdapterDataObserver(AdapterDataObserver)}
    */
   @CallSuper @Override public void setAdapter(Adapter adapter) {
+    // Stable ids of the previous Adapter mean nothing to the new one.
+    if (getAdapter() != adapter) playbackInfoCache.clearIds();
     super.setAdapter(adapter);
     dataObserver.registerAdapter(adapter);
   }
@@ -423,6 +880,7 @@ public class Container extends RecyclerView {
    */
   @CallSuper @Override public void swapAdapter(Adapter adapter,
       boolean removeAndRecycleExistingViews) {
+    if (getAdapter() != adapter) playbackInfoCache.clearIds();
     super.swapAdapter(adapter, removeAndRecycleExistingViews);
     dataObserver.registerAdapter(adapter);
   }
@@ -431,6 +889,7 @@ public class Container extends RecyclerView {
   /* pkg */ final PlaybackInfoCache playbackInfoCache = new PlaybackInfoCache(this);
   /* pkg */ Initializer playerInitializer = Initializer.DEFAULT;
   private CacheManager cacheManager = null; // null by default
+  private PlaybackInfoStore playbackInfoStore = null; // null by default
 
   public final void setPlayerInitializer(@NonNull Initializer playerInitializer) {
     this.playerInitializer = playerInitializer;
@@ -465,7 +924,12 @@ public class Container extends RecyclerView {
    */
   @RemoveIn(version = "3.6.0") @Deprecated  //
   @NonNull public List<Integer> getSavedPlayerOrders() {
-    return new ArrayList<>(playbackInfoCache.coldKeyToOrderMap.keySet());
+    OrderedIntMap<Object> orders = playbackInfoCache.coldKeyToOrderMap;
+    List<Integer> result = new ArrayList<>(orders.size());
+    for (int i = 0, size = orders.size(); i < size; i++) {
+      result.add(orders.keyAt(i));
+    }
+    return result;
   }
 
   /**
@@ -475,26 +939,14 @@ public class Container extends RecyclerView {
    * this method returns cached {@link PlaybackInfo} of attached {@link ToroPlayer} only.
    */
   @NonNull public SparseArray<PlaybackInfo> getLatestPlaybackInfos() {
-    SparseArray<PlaybackInfo> cache = new SparseArray<>();
     List<ToroPlayer> activePlayers = this.filterBy(Container.Filter.PLAYING);
     // This will update hotCache and coldCache if they are available.
     for (ToroPlayer player : activePlayers) {
       savePlaybackInfo(player.getPlayerOrder(), checkNotNull(player.getCurrentPlaybackInfo()));
     }
 
-    if (cacheManager == null) {
-      if (playbackInfoCache.hotCache != null) {
-        for (Map.Entry<Integer, PlaybackInfo> entry : playbackInfoCache.hotCache.entrySet()) {
-          cache.put(entry.getKey(), entry.getValue());
-        }
-      }
-    } else {
-      for (Map.Entry<Integer, Object> entry : playbackInfoCache.coldKeyToOrderMap.entrySet()) {
-        cache.put(entry.getKey(), playbackInfoCache.coldCache.get(entry.getValue()));
-      }
-    }
-
-    return cache;
+    // Cold cache if there is CacheManager, hot cache otherwise.
+    return playbackInfoCache.saveStates();
   }
 
   /**
@@ -503,6 +955,9 @@ public class Container extends RecyclerView {
    * cycle events. Setting a {@code null} {@link CacheManager} will remove that ability.
    * {@link Container} doesn't have a non-null {@link CacheManager} by default.
    *
+   * Without a {@link CacheManager}, if the Adapter has stable ids, {@link Container} keeps the
+   * {@link PlaybackInfo} of the detached players by {@link Adapter#getItemId(int)} on its own.
+   *
    * Setting this while there is a {@code non-null} {@link CacheManager} available will clear
    * current {@link PlaybackInfo} cache.
    *
@@ -514,6 +969,60 @@ public class Container extends RecyclerView {
     this.cacheManager = cacheManager;
   }
 
+  /**
+   * Set a persistent {@link PlaybackInfoStore} to this {@link Container}. It works together with
+   * the {@link CacheManager}: every saved {@link PlaybackInfo} is also saved to the store by its
+   * key, and the store is looked up when a {@link ToroPlayer} is attached but there is no cached
+   * {@link PlaybackInfo} in memory. Does nothing if there is no {@link CacheManager}.
+   *
+   * @param playbackInfoStore the {@link PlaybackInfoStore} to use, or {@code null} to stop using
+   * one.
+   */
+  public final void setPlaybackInfoStore(@Nullable PlaybackInfoStore playbackInfoStore) {
+    this.playbackInfoStore = playbackInfoStore;
+  }
+
+  @Nullable public final PlaybackInfoStore getPlaybackInfoStore() {
+    return playbackInfoStore;
+  }
+
+  /**
+   * Limit the {@link PlaybackInfo} cache kept for the {@link CacheManager}. Over the limit, the
+   * least recently used entries are evicted first, then the ones farthest from the last accessed
+   * order. Entries of the attached {@link ToroPlayer}s are never evicted. The cache is not bounded
+   * by default.
+   *
+   * @param maxEntries max number of cached entries.
+   * @param maxBytes approximate max size of the cache in bytes. Each entry is counted as a fixed
+   * size of 128 bytes.
+   */
+  public final void setCacheLimits(int maxEntries, long maxBytes) {
+    if (maxEntries < 0 || maxBytes < 0) throw new IllegalArgumentException("Negative limit.");
+    this.playbackInfoCache.setLimits(maxEntries, maxBytes);
+  }
+
+  /**
+   * @return number of attached players whose {@link PlaybackInfo} was found in the cache.
+   */
+  public final int getCacheHitCount() {
+    return playbackInfoCache.hitCount;
+  }
+
+  /**
+   * @return number of attached players whose {@link PlaybackInfo} was not found in the cache,
+   * while there is a {@link CacheManager}.
+   */
+  public final int getCacheMissCount() {
+    return playbackInfoCache.missCount;
+  }
+
+  /**
+   * @return number of cache entries evicted because of the limits.
+   */
+  public final int getCacheEvictionCount() {
+    return playbackInfoCache.evictionCount;
+  }
+
   /**
    * Get current {@link CacheManager} of the {@link Container}.
    *
@@ -555,7 +1064,7 @@ public class Container extends RecyclerView {
         }
       }
       tmpStates.clear();
-      dispatchUpdateOnAnimationFinished(true);
+      dispatchUpdateOnAnimationFinished();
     }
 
     dispatchWindowVisibilityMayChange();
@@ -621,7 +1130,7 @@ public class Container extends RecyclerView {
         }
       }
       tmpStates.clear();
-      dispatchUpdateOnAnimationFinished(true);
+      dispatchUpdateOnAnimationFinished();
     }
   }
 
@@ -656,7 +1165,7 @@ public class Container extends RecyclerView {
 
     // Client must consider this behavior using CacheManager implement.
     PlayerViewState playerViewState = new PlayerViewState(superState);
-    playerViewState.statesCache = states;
+    playerViewState.statesCache = savedStateWindow >= 0 ? windowStates(states) : states;
 
     // To mark that this method was called. An activity recreation will clear this.
     if (states != null && states.size() > 0) {
@@ -669,6 +1178,44 @@ public class Container extends RecyclerView {
     return playerViewState;
   }
 
+  // Only keep the states around the laid out items.
+  private SparseArray<PlaybackInfo> windowStates(SparseArray<PlaybackInfo> states) {
+    LayoutManager layout = super.getLayoutManager();
+    int childCount = layout != null ? layout.getChildCount() : 0;
+    int first = Integer.MAX_VALUE, last = NO_POSITION;
+    for (int i = 0; i < childCount; i++) {
+      int position = layout.getPosition(layout.getChildAt(i));
+      if (position == NO_POSITION) continue;
+      first = Math.min(first, position);
+      last = Math.max(last, position);
+    }
+    if (last == NO_POSITION) return states;  // Nothing laid out, keep all.
+
+    long from = (long) first - savedStateWindow;
+    long to = (long) last + savedStateWindow;
+    SparseArray<PlaybackInfo> result = new SparseArray<>();
+    for (int i = 0, size = states.size(); i < size; i++) {
+      int order = states.keyAt(i);
+      if (order >= from && order <= to) result.put(order, states.valueAt(i));
+    }
+    return result;
+  }
+
+  /* package */ int savedStateWindow = -1;  // negative = save all.
+
+  /**
+   * Limit the {@link PlaybackInfo}s saved in the instance state of this {@link Container} to the
+   * orders around the laid out items: from (first laid out order - window) to (last laid out order
+   * + window). This keeps the saved state small for long lists. All the {@link PlaybackInfo}s are
+   * saved by default.
+   *
+   * @param window number of orders to keep on each side of the laid out items, or a negative value
+   * to save all.
+   */
+  public final void setSavedStateWindow(int window) {
+    this.savedStateWindow = window;
+  }
+
   @Override protected void onRestoreInstanceState(Parcelable state) {
     if (!(state instanceof PlayerViewState)) {
       super.onRestoreInstanceState(state);
@@ -685,6 +1232,10 @@ public class Container extends RecyclerView {
    * Store the array of {@link PlaybackInfo} of recently cached playback. This state will be used
    * only when {@link #cacheManager} is not {@code null}. Extension of {@link Container} must
    * also have its own version of {@link SavedState} extends this {@link PlayerViewState}.
+   *
+   * Plain {@link PlaybackInfo}s are packed as primitive values, without any class name. Only the
+   * other values (for example the sub classes of {@link PlaybackInfo}) are written as
+   * {@link Parcelable}s.
    */
   @SuppressWarnings("WeakerAccess") //
   public static class PlayerViewState extends AbsSavedState {
@@ -703,7 +1254,7 @@ public class Container extends RecyclerView {
      */
     PlayerViewState(Parcel in, ClassLoader loader) {
       super(in, loader);
-      statesCache = in.readSparseArray(loader);
+      statesCache = SavedStates.readStates(in, loader);
     }
 
     PlayerViewState(Parcel in) {
@@ -712,8 +1263,7 @@ public class Container extends RecyclerView {
 
     @Override public void writeToParcel(Parcel dest, int flags) {
       super.writeToParcel(dest, flags);
-      //noinspection unchecked
-      dest.writeSparseArray((SparseArray<Object>) statesCache);
+      SavedStates.writeStates(dest, statesCache);
     }
 
     public static final Creator<PlayerViewState> CREATOR =
@@ -757,42 +1307,30 @@ public class Container extends RecyclerView {
       }
     }
 
+    // The parked players follow every change, batched or not.
+
     @Override public void onChanged() {
-      dispatchUpdateOnAnimationFinished(true);
+      playerManager.onDataSetChanged();
+      if (!playbackInfoCache.isBatching()) dispatchUpdateOnAnimationFinished();
     }
 
     @Override public void onItemRangeChanged(int positionStart, int itemCount) {
-      dispatchUpdateOnAnimationFinished(false);
+      if (!playbackInfoCache.isBatching()) dispatchUpdateOnAnimationFinished();
     }
 
     @Override public void onItemRangeInserted(int positionStart, int itemCount) {
-      dispatchUpdateOnAnimationFinished(false);
+      playerManager.onItemRangeInserted(positionStart, itemCount);
+      if (!playbackInfoCache.isBatching()) dispatchUpdateOnAnimationFinished();
     }
 
     @Override public void onItemRangeRemoved(int positionStart, int itemCount) {
-      dispatchUpdateOnAnimationFinished(false);
+      playerManager.onItemRangeRemoved(positionStart, itemCount);
+      if (!playbackInfoCache.isBatching()) dispatchUpdateOnAnimationFinished();
     }
 
     @Override public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
-      dispatchUpdateOnAnimationFinished(false);
-    }
-  }
-
-  /**
-   * A {@link Handler.Callback} that will fake a scroll with {@link #SCROLL_STATE_IDLE} to refresh
-   * all the playback. This is relatively expensive.
-   */
-  private static class AnimatorHelper implements Handler.Callback {
-
-    @NonNull private final Container container;
-
-    AnimatorHelper(@NonNull Container container) {
-      this.container = container;
-    }
-
-    @Override public boolean handleMessage(Message msg) {
-      this.container.onScrollStateChanged(SCROLL_STATE_IDLE);
-      return true;
+      playerManager.onItemRangeMoved(fromPosition, toPosition, itemCount);
+      if (!playbackInfoCache.isBatching()) dispatchUpdateOnAnimationFinished();
     }
   }
 
@@ -1081,6 +1619,19 @@ public class Container extends RecyclerView {
     }
   }
 
+  /**
+   * See {@link #setPlaybackWindowListener(PlaybackWindowListener)}.
+   */
+  public interface PlaybackWindowListener {
+
+    /**
+     * @param container the {@link Container}.
+     * @param anchor Adapter position of the farthest selected player in the scroll direction.
+     * @param direction 1 if the user scrolls toward the larger positions, -1 otherwise.
+     */
+    void onPlaybackWindowChanged(@NonNull Container container, int anchor, int direction);
+  }
+
   /**
    * Callback for {@link Behavior} to tell the Client that User has finished the interaction for
    * enough amount of time, so it (the Client) should do something. Normally, we ask Container to
@@ -1116,7 +1667,7 @@ public class Container extends RecyclerView {
       Container container = containerRef.get();
       if (container == null) return;
       if (layoutDidChange(left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom)) {
-        container.dispatchUpdateOnAnimationFinished(false);
+        container.dispatchUpdateOnAnimationFinished();
       }
     }
   }
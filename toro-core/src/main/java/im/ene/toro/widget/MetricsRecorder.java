@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.v4.util.ArrayMap;
+import android.support.v4.util.Pools;
+import im.ene.toro.ToroPlayer;
+
+import static im.ene.toro.widget.PlaybackMetrics.TIME_UNSET;
+
+/**
+ * @author eneim (2018/08/22).
+ *
+ * Records the {@link PlaybackMetrics} of the players of a {@link Container}. The Container and
+ * {@link PlayerManager} report the selection, play, pause and release of the players, the player
+ * helpers report the playback events. Does nothing while there is no listener.
+ *
+ * Entries are recycled, and the events only update primitive fields, so recording allocates
+ * nothing once warmed up.
+ */
+final class MetricsRecorder {
+
+  private static final int MAX_POOL_SIZE = 8;
+
+  @NonNull private final Container container;
+  private final ArrayMap<ToroPlayer, Entry> entries = new ArrayMap<>();
+  private final Pools.SimplePool<Entry> entryPool = new Pools.SimplePool<>(MAX_POOL_SIZE);
+
+  /* pkg */ PlaybackMetrics.Listener listener;
+
+  MetricsRecorder(@NonNull Container container) {
+    this.container = container;
+  }
+
+  void setListener(PlaybackMetrics.Listener listener) {
+    this.listener = listener;
+    if (listener == null) clear();
+  }
+
+  // The Container selected the player and requests it to play.
+  void onPlayRequested(@NonNull ToroPlayer player) {
+    if (listener == null) return;
+    Entry entry = obtain(player);
+    if (entry.playedAt == 0) entry.requestedAt = SystemClock.uptimeMillis();
+  }
+
+  // The player is asked to play.
+  void onPlay(@NonNull ToroPlayer player) {
+    if (listener == null) return;
+    Entry entry = obtain(player);
+    if (entry.playedAt != 0) return;  // Session is running already.
+    long now = SystemClock.uptimeMillis();
+    entry.playedAt = now;
+    entry.ready = false;
+    entry.bufferingSince = 0;
+    PlaybackMetrics metrics = entry.metrics;
+    if (entry.requestedAt != 0) metrics.selectionToPlayMs = now - entry.requestedAt;
+    if (entry.firstFrameRendered) metrics.playToFirstFrameMs = 0;
+  }
+
+  void onEvent(@NonNull ToroPlayer player, int event, long value) {
+    if (listener == null) return;
+    Entry entry = obtain(player);
+    PlaybackMetrics metrics = entry.metrics;
+    long now = SystemClock.uptimeMillis();
+    switch (event) {
+      case PlaybackMetrics.EVENT_BUFFERING:
+        // A stall if the playback was running. Value is the play flag.
+        if (entry.playedAt != 0 && entry.ready && value != 0 && entry.bufferingSince == 0) {
+          entry.bufferingSince = now;
+        }
+        break;
+      case PlaybackMetrics.EVENT_READY:
+        if (entry.playedAt == 0) break;
+        entry.ready = true;
+        if (entry.bufferingSince != 0) {
+          metrics.rebufferCount++;
+          metrics.rebufferDurationMs += now - entry.bufferingSince;
+          entry.bufferingSince = 0;
+        }
+        break;
+      case PlaybackMetrics.EVENT_FIRST_FRAME:
+        entry.firstFrameRendered = true;
+        if (entry.playedAt != 0 && metrics.playToFirstFrameMs == TIME_UNSET) {
+          metrics.playToFirstFrameMs = now - entry.playedAt;
+        }
+        break;
+      case PlaybackMetrics.EVENT_DROPPED_FRAMES:
+        if (entry.playedAt != 0) metrics.droppedFrames += (int) value;
+        break;
+      case PlaybackMetrics.EVENT_BYTES_LOADED:
+        if (entry.playedAt != 0) metrics.bytesLoaded += value;
+        break;
+      default:
+        break;
+    }
+  }
+
+  // The player is paused or released. Reports the session if there is one.
+  void onSessionEnded(@NonNull ToroPlayer player) {
+    if (listener == null) return;
+    Entry entry = entries.get(player);
+    if (entry == null || entry.playedAt == 0) return;
+    long now = SystemClock.uptimeMillis();
+    PlaybackMetrics metrics = entry.metrics;
+    if (entry.bufferingSince != 0) {  // Ended while stalling.
+      metrics.rebufferCount++;
+      metrics.rebufferDurationMs += now - entry.bufferingSince;
+    }
+    metrics.playDurationMs = now - entry.playedAt;
+    listener.onPlaybackMetrics(player,
+        container.playbackInfoCache.getKey(player.getPlayerOrder()), metrics);
+    entry.reset();
+  }
+
+  void onPlayerReleased(@NonNull ToroPlayer player) {
+    onSessionEnded(player);
+    Entry entry = entries.remove(player);
+    if (entry != null) {
+      entry.reset();
+      entry.firstFrameRendered = false;
+      entryPool.release(entry);
+    }
+  }
+
+  void clear() {
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      Entry entry = entries.valueAt(i);
+      entry.reset();
+      entry.firstFrameRendered = false;
+      entryPool.release(entry);
+    }
+    entries.clear();
+  }
+
+  private Entry obtain(ToroPlayer player) {
+    Entry entry = entries.get(player);
+    if (entry == null) {
+      entry = entryPool.acquire();
+      if (entry == null) entry = new Entry();
+      entries.put(player, entry);
+    }
+    return entry;
+  }
+
+  static final class Entry {
+
+    final PlaybackMetrics metrics = new PlaybackMetrics();
+    long requestedAt;  // 0 = not requested.
+    long playedAt;  // 0 = no running session.
+    long bufferingSince;  // 0 = not stalling.
+    boolean ready;  // the session reached the ready state at least once.
+    boolean firstFrameRendered;  // since the player is known, across the sessions.
+
+    void reset() {
+      metrics.reset();
+      requestedAt = 0;
+      playedAt = 0;
+      bufferingSince = 0;
+      ready = false;
+    }
+  }
+}
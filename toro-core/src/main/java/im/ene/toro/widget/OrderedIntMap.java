@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * @author eneim (2018/08/01).
+ *
+ * A map of primitive int keys to Objects, sorted by key in ascending order, which can shift a
+ * range of keys at once. This is used to follow the adapter position (the Player order) through
+ * data change events without re-inserting every cached entry.
+ *
+ * Internally this is a treap laid out in parallel primitive arrays. Each node keeps a lazy key
+ * offset for its sub tree, so {@link #shift(int, int)}, {@link #removeRange(int, int)} and
+ * {@link #move(int, int)} take O(log n), allocate nothing and do not visit the entries those are
+ * not affected. Index based access ({@link #keyAt(int)}, {@link #valueAt(int)}) is O(log n) as
+ * well, so iterating the whole map costs O(n log n).
+ *
+ * This class is not thread-safe, and is expected to be used from main thread only.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess", "unchecked" }) //
+final class OrderedIntMap<V> {
+
+  private static final int NIL = -1;
+
+  private int[] keys;
+  private int[] offsets;  // pending key offset, not yet applied to the children
+  private int[] counts;   // size of the sub tree rooted at a node
+  private int[] priorities;
+  private int[] lefts;
+  private int[] rights;
+  private Object[] values;
+
+  private int root = NIL;
+  private int recycled = NIL;  // head of the recycled nodes, chained by rights[]
+  private int allocated;  // number of slots in use, including recycled ones
+  private int seed = 0x2545F491;
+
+  // Result of #split(int, int). Kept as fields so that splitting allocates nothing.
+  private int splitLeft;
+  private int splitRight;
+
+  OrderedIntMap() {
+    this(16);
+  }
+
+  OrderedIntMap(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 4);
+    keys = new int[capacity];
+    offsets = new int[capacity];
+    counts = new int[capacity];
+    priorities = new int[capacity];
+    lefts = new int[capacity];
+    rights = new int[capacity];
+    values = new Object[capacity];
+  }
+
+  int size() {
+    return count(root);
+  }
+
+  boolean containsKey(int key) {
+    return find(key) != NIL;
+  }
+
+  @Nullable V get(int key) {
+    int node = find(key);
+    return node == NIL ? null : (V) values[node];
+  }
+
+  /**
+   * Put a value for a key, replacing the existing one if any.
+   *
+   * @return the previous value of the key, or {@code null} if there was none.
+   */
+  @Nullable V put(int key, V value) {
+    int node = find(key);
+    if (node != NIL) {
+      V previous = (V) values[node];
+      values[node] = value;
+      return previous;
+    }
+
+    node = obtain(key, value);
+    split(root, key);
+    int left = splitLeft;
+    int right = splitRight;
+    root = merge(merge(left, node), right);
+    return null;
+  }
+
+  /**
+   * Remove the entry of a key.
+   *
+   * @return the removed value, or {@code null} if there was no entry for the key.
+   */
+  @Nullable V remove(int key) {
+    split(root, key);
+    int left = splitLeft;
+    split(splitRight, key + 1);
+    int node = splitLeft;
+    int right = splitRight;
+    V removed = null;
+    if (node != NIL) {
+      removed = (V) values[node];
+      recycle(node);
+    }
+    root = merge(left, right);
+    return removed;
+  }
+
+  void clear() {
+    Arrays.fill(values, 0, allocated, null);
+    root = NIL;
+    recycled = NIL;
+    allocated = 0;
+  }
+
+  int keyAt(int index) {
+    return keys[nodeAt(index)];
+  }
+
+  V valueAt(int index) {
+    return (V) values[nodeAt(index)];
+  }
+
+  void setValueAt(int index, V value) {
+    values[nodeAt(index)] = value;
+  }
+
+  /**
+   * @return index of the key, or a negative number if there is no entry for the key.
+   */
+  int indexOfKey(int key) {
+    int node = root;
+    int index = 0;
+    while (node != NIL) {
+      push(node);
+      if (key < keys[node]) {
+        node = lefts[node];
+      } else if (key > keys[node]) {
+        index += count(lefts[node]) + 1;
+        node = rights[node];
+      } else {
+        return index + count(lefts[node]);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return index of the smallest key that is equal to or greater than the key, or {@link #size()}
+   * if there is no such key.
+   */
+  int ceilingIndex(int key) {
+    int node = root;
+    int index = 0;
+    int result = size();
+    while (node != NIL) {
+      push(node);
+      if (keys[node] >= key) {
+        result = index + count(lefts[node]);
+        node = lefts[node];
+      } else {
+        index += count(lefts[node]) + 1;
+        node = rights[node];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Add delta to all keys those are equal to or greater than fromKey. A negative delta must not
+   * make those keys collide with smaller ones, use {@link #removeRange(int, int)} for that.
+   */
+  void shift(int fromKey, int delta) {
+    if (delta == 0 || root == NIL) return;
+    split(root, fromKey);
+    int left = splitLeft;
+    int right = splitRight;
+    apply(right, delta);
+    root = merge(left, right);
+  }
+
+  /**
+   * Remove all entries whose keys are in range of [fromKey, fromKey + count), then shift the keys
+   * those are equal to or greater than (fromKey + count) by -count.
+   */
+  void removeRange(int fromKey, int count) {
+    if (count <= 0 || root == NIL) return;
+    split(root, fromKey);
+    int left = splitLeft;
+    split(splitRight, fromKey + count);
+    int middle = splitLeft;
+    int right = splitRight;
+    recycleTree(middle);
+    apply(right, -count);
+    root = merge(left, right);
+  }
+
+  /**
+   * Move the entry of a key to another key, the same as moving an item in an Adapter: entries in
+   * between are shifted by 1 toward the original position.
+   */
+  void move(int fromKey, int toKey) {
+    if (fromKey == toKey || root == NIL) return;
+    split(root, fromKey);
+    int left = splitLeft;
+    split(splitRight, fromKey + 1);
+    int node = splitLeft;
+    root = merge(left, splitRight);
+
+    if (fromKey < toKey) {
+      shiftRange(fromKey + 1, toKey + 1, -1);
+    } else {
+      shiftRange(toKey, fromKey, 1);
+    }
+
+    if (node != NIL) {
+      keys[node] = toKey;
+      offsets[node] = 0;
+      split(root, toKey);
+      left = splitLeft;
+      int right = splitRight;
+      root = merge(merge(left, node), right);
+    }
+  }
+
+  @Override public String toString() {
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0, size = size(); i < size; i++) {
+      if (i > 0) builder.append(", ");
+      int node = nodeAt(i);
+      builder.append(keys[node]).append('=').append(values[node]);
+    }
+    return builder.append('}').toString();
+  }
+
+  /// internal APIs
+
+  // Add delta to the keys in range of [fromKey, toKey).
+  private void shiftRange(int fromKey, int toKey, int delta) {
+    split(root, fromKey);
+    int left = splitLeft;
+    split(splitRight, toKey);
+    int middle = splitLeft;
+    int right = splitRight;
+    apply(middle, delta);
+    root = merge(merge(left, middle), right);
+  }
+
+  private int find(int key) {
+    int node = root;
+    while (node != NIL) {
+      push(node);
+      if (key < keys[node]) {
+        node = lefts[node];
+      } else if (key > keys[node]) {
+        node = rights[node];
+      } else {
+        return node;
+      }
+    }
+    return NIL;
+  }
+
+  private int nodeAt(int index) {
+    if (index < 0 || index >= size()) throw new ArrayIndexOutOfBoundsException(index);
+    int node = root;
+    while (true) {
+      push(node);
+      int leftCount = count(lefts[node]);
+      if (index < leftCount) {
+        node = lefts[node];
+      } else if (index > leftCount) {
+        index -= leftCount + 1;
+        node = rights[node];
+      } else {
+        return node;
+      }
+    }
+  }
+
+  // Split a sub tree into 2 trees: keys smaller than key go to splitLeft, the rest to splitRight.
+  private void split(int node, int key) {
+    if (node == NIL) {
+      splitLeft = NIL;
+      splitRight = NIL;
+      return;
+    }
+
+    push(node);
+    if (keys[node] < key) {
+      split(rights[node], key);
+      rights[node] = splitLeft;
+      update(node);
+      splitLeft = node;
+    } else {
+      split(lefts[node], key);
+      lefts[node] = splitRight;
+      update(node);
+      splitRight = node;
+    }
+  }
+
+  // All keys of left tree must be smaller than those of right tree.
+  private int merge(int left, int right) {
+    if (left == NIL) return right;
+    if (right == NIL) return left;
+    if (priorities[left] > priorities[right]) {
+      push(left);
+      rights[left] = merge(rights[left], right);
+      update(left);
+      return left;
+    } else {
+      push(right);
+      lefts[right] = merge(left, lefts[right]);
+      update(right);
+      return right;
+    }
+  }
+
+  private void push(int node) {
+    int offset = offsets[node];
+    if (offset != 0) {
+      apply(lefts[node], offset);
+      apply(rights[node], offset);
+      offsets[node] = 0;
+    }
+  }
+
+  private void apply(int node, int delta) {
+    if (node != NIL) {
+      keys[node] += delta;
+      offsets[node] += delta;
+    }
+  }
+
+  private void update(int node) {
+    counts[node] = 1 + count(lefts[node]) + count(rights[node]);
+  }
+
+  private int count(int node) {
+    return node == NIL ? 0 : counts[node];
+  }
+
+  private int obtain(int key, Object value) {
+    int node;
+    if (recycled != NIL) {
+      node = recycled;
+      recycled = rights[node];
+    } else {
+      if (allocated == keys.length) grow();
+      node = allocated++;
+    }
+
+    keys[node] = key;
+    offsets[node] = 0;
+    counts[node] = 1;
+    lefts[node] = NIL;
+    rights[node] = NIL;
+    values[node] = value;
+    // xorshift, good enough to balance the tree.
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    priorities[node] = seed;
+    return node;
+  }
+
+  private void recycle(int node) {
+    values[node] = null;
+    lefts[node] = NIL;
+    rights[node] = recycled;
+    recycled = node;
+  }
+
+  private void recycleTree(int node) {
+    if (node == NIL) return;
+    int left = lefts[node];
+    int right = rights[node];
+    recycle(node);
+    recycleTree(left);
+    recycleTree(right);
+  }
+
+  private void grow() {
+    int capacity = keys.length * 2;
+    keys = Arrays.copyOf(keys, capacity);
+    offsets = Arrays.copyOf(offsets, capacity);
+    counts = Arrays.copyOf(counts, capacity);
+    priorities = Arrays.copyOf(priorities, capacity);
+    lefts = Arrays.copyOf(lefts, capacity);
+    rights = Arrays.copyOf(rights, capacity);
+    values = Arrays.copyOf(values, capacity);
+  }
+}
@@ -16,24 +16,23 @@
 
 package im.ene.toro.widget;
 
-import android.annotation.SuppressLint;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.RecyclerView.AdapterDataObserver;
+import android.util.LongSparseArray;
 import android.util.SparseArray;
 import im.ene.toro.CacheManager;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroTrace;
 import im.ene.toro.ToroUtil;
 import im.ene.toro.media.PlaybackInfo;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import im.ene.toro.media.PlaybackInfoStore;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
+import static android.support.v7.widget.RecyclerView.NO_ID;
 import static im.ene.toro.media.PlaybackInfo.SCRAP;
-import static im.ene.toro.widget.Common.ORDER_COMPARATOR_INT;
 
 /**
  * @author eneim (2018/04/24).
@@ -46,29 +45,153 @@ import static im.ene.toro.widget.Common.ORDER_COMPARATOR_INT;
  * [2] If a non-null {@link CacheManager} provided to the {@link Container}, this class must
  * properly manage the {@link PlaybackInfo} of detached {@link ToroPlayer} and restore it to
  * previous state after being re-attached.
+ *
+ * Order based caches are {@link OrderedIntMap}s, so adapter range events only shift the orders
+ * lazily: they cost O(log n), allocate nothing and don't ask the {@link CacheManager} again for the
+ * items those are just moved.
+ *
+ * If there is no {@link CacheManager} but the Adapter has stable ids, the cold cache is keyed by
+ * those ids instead (see {@link #idCache}).
+ *
+ * The cold caches can be bounded (see {@link #setLimits(int, long)}). Beyond the limit, the least
+ * recently used entries of coldCache are evicted first, then the tracked entries farthest from the
+ * last accessed order, then the least recently used entries of idCache. Entries of the attached
+ * Players are never evicted.
+ *
+ * Adapter events can be batched (see {@link #beginBatch()}): they are recorded, then applied
+ * together once the batch ends, followed by a single eviction pass.
  */
-@SuppressWarnings({ "WeakerAccess", "unused" }) @SuppressLint("UseSparseArrays")
+@SuppressWarnings({ "WeakerAccess", "unused" }) //
 final class PlaybackInfoCache extends AdapterDataObserver {
 
   @NonNull private final Container container;
-  // Cold cache represents the map between key obtain from CacheManager and PlaybackInfo. If the
-  // CacheManager is null, this cache will hold nothing.
-  /* pkg */ HashMap<Object, PlaybackInfo> coldCache = new HashMap<>();
+  // Cold cache represents the map between key obtain from CacheManager and PlaybackInfo, for the
+  // keys those are not tracked by order (see coldKeyToOrderMap). If the CacheManager is null, this
+  // cache will hold nothing. Access ordered, so the eldest entry is the least recently used one.
+  /* pkg */ LinkedHashMap<Object, PlaybackInfo> coldCache = new LinkedHashMap<>(16, 0.75f, true);
 
   // Hot cache represents the map between Player's order and its PlaybackInfo. A key-value map only
   // lives between a Player's attached state.
-  // Being a TreeMap because we need to traversal through it in order sometime.
-  /* pkg */ TreeMap<Integer, PlaybackInfo> hotCache; // only cache attached Views.
-
-  // Holds the map between Player's order and its key obtain from CacheManager.
-  /* pkg */ TreeMap<Integer, Object> coldKeyToOrderMap = new TreeMap<>(ORDER_COMPARATOR_INT);
+  /* pkg */ OrderedIntMap<PlaybackInfo> hotCache; // only cache attached Views.
+
+  // Holds the map between Player's order and its key obtain from CacheManager, for the Players seen
+  // since the Container is attached. Their PlaybackInfo are kept in coldInfos by the same order, so
+  // both follow the adapter changes together. Once tracked here, a key is removed from coldCache.
+  /* pkg */ final OrderedIntMap<Object> coldKeyToOrderMap = new OrderedIntMap<>();
+  /* pkg */ final OrderedIntMap<PlaybackInfo> coldInfos = new OrderedIntMap<>();
+
+  // Cold cache keyed by the Adapter's stable ids, used when there is no CacheManager but the
+  // Adapter has stable ids. An id follows its item through the range events, so those events need
+  // nothing here, and no CacheManager call nor boxing is required.
+  /* pkg */ final LongSparseArray<IdEntry> idCache = new LongSparseArray<>();
+  // Entries of idCache linked from the most to the least recently used one, for the eviction.
+  private IdEntry newestId;
+  private IdEntry eldestId;
+  // Entries of idCache used by the attached Players, by order. Follows the range events like
+  // hotCache, so an entry knows in O(1) if it is hot.
+  /* pkg */ final OrderedIntMap<IdEntry> hotIds = new OrderedIntMap<>();
+
+  // Approximate retained size of a cold entry: the PlaybackInfo with its VolumeInfo, the map entry
+  // and a small key. Only used to turn a bytes limit into an entries limit.
+  static final int APPROX_ENTRY_BYTES = 128;
+
+  /* pkg */ int maxEntries = Integer.MAX_VALUE;
+  /* pkg */ int lastOrder = 0;  // most recently accessed order, anchor of the eviction.
+
+  /* pkg */ int hitCount;
+  /* pkg */ int missCount;
+  /* pkg */ int evictionCount;
+
+  // Adapter events recorded during a batch, 3 ints per event: type, first arg, second arg.
+  private static final int EVENT_CHANGED = 0;
+  private static final int EVENT_RANGE_CHANGED = 1;
+  private static final int EVENT_RANGE_INSERTED = 2;
+  private static final int EVENT_RANGE_REMOVED = 3;
+  private static final int EVENT_RANGE_MOVED = 4;
+
+  private int batchDepth;  // > 0 = events are recorded instead of being applied.
+  private boolean replaying;  // applying the recorded events, eviction is deferred.
+  private int[] batchEvents = new int[3 * 16];
+  private int batchLength;
 
   PlaybackInfoCache(@NonNull Container container) {
     this.container = container;
   }
 
+  void setLimits(int maxEntries, long maxBytes) {
+    this.maxEntries = (int) Math.min(maxEntries, maxBytes / APPROX_ENTRY_BYTES);
+    trim();
+  }
+
+  final void beginBatch() {
+    batchDepth++;
+  }
+
+  final boolean isBatching() {
+    return batchDepth > 0;
+  }
+
+  /**
+   * Close a batch opened by {@link #beginBatch()}. If this closes the outermost batch, apply the
+   * recorded events in order, then evict the entries above the limit once.
+   *
+   * @return {@code true} if some events were applied.
+   */
+  final boolean endBatch() {
+    if (batchDepth == 0 || --batchDepth > 0) return false;
+    if (batchLength == 0) return false;
+    ToroTrace.beginSection("Toro:endBatch");
+    try {
+      replaying = true;
+      try {
+        for (int i = 0; i < batchLength; i += 3) {
+          int first = batchEvents[i + 1];
+          int second = batchEvents[i + 2];
+          switch (batchEvents[i]) {
+            case EVENT_CHANGED:
+              onChanged();
+              break;
+            case EVENT_RANGE_CHANGED:
+              onItemRangeChanged(first, second);
+              break;
+            case EVENT_RANGE_INSERTED:
+              onItemRangeInserted(first, second);
+              break;
+            case EVENT_RANGE_REMOVED:
+              onItemRangeRemoved(first, second);
+              break;
+            case EVENT_RANGE_MOVED:
+              onItemRangeMoved(first, second, 1);
+              break;
+          }
+        }
+      } finally {
+        replaying = false;
+        batchLength = 0;
+      }
+      trim();
+    } finally {
+      ToroTrace.endSection();
+    }
+    return true;
+  }
+
+  // Return true if the event is recorded for later, false if it must be applied now.
+  private boolean record(int type, int first, int second) {
+    if (batchDepth == 0) return false;
+    if (batchLength + 3 > batchEvents.length) {
+      int[] events = new int[batchEvents.length * 2];
+      System.arraycopy(batchEvents, 0, events, 0, batchLength);
+      batchEvents = events;
+    }
+    batchEvents[batchLength++] = type;
+    batchEvents[batchLength++] = first;
+    batchEvents[batchLength++] = second;
+    return true;
+  }
+
   final void onAttach() {
-    hotCache = new TreeMap<>(ORDER_COMPARATOR_INT);
+    hotCache = new OrderedIntMap<>();
   }
 
   final void onDetach() {
@@ -76,24 +199,54 @@ final class PlaybackInfoCache extends AdapterDataObserver {
       hotCache.clear();
       hotCache = null;
     }
+    clearHotIds();
+
+    // Hand the tracked PlaybackInfo back to cold cache, so they are available by key next time.
+    // Ask for the key again as CacheManager#DEFAULT uses the order as key.
+    for (int i = 0, size = coldKeyToOrderMap.size(); i < size; i++) {
+      Object key = getKey(coldKeyToOrderMap.keyAt(i));
+      if (key == null) key = coldKeyToOrderMap.valueAt(i);
+      PlaybackInfo info = coldInfos.valueAt(i);
+      if (key != null && info != null) coldCache.put(key, info);
+    }
     coldKeyToOrderMap.clear();
+    coldInfos.clear();
+    trim();
   }
 
   final void onPlayerAttached(ToroPlayer player) {
     int playerOrder = player.getPlayerOrder();
     // [1] Check if there is cold cache for this player
-    Object key = getKey(playerOrder);
-    if (key != null) coldKeyToOrderMap.put(playerOrder, key);
+    PlaybackInfo cache = coldInfos.get(playerOrder);
+    long itemId = cache == null ? getItemId(playerOrder) : NO_ID;
+    if (itemId != NO_ID) {
+      cache = getById(itemId);
+    } else if (cache == null) {
+      Object key = getKey(playerOrder);
+      if (key != null) {
+        cache = coldCache.get(key);
+        // [2] Then the persistent store if any, it is loaded lazily on first lookup.
+        PlaybackInfoStore store = container.getPlaybackInfoStore();
+        if (cache == null && store != null) cache = store.load(key);
+      }
+    }
 
-    PlaybackInfo cache = key == null ? null : coldCache.get(key);
     if (cache == null || cache == SCRAP) {
+      if (itemId != NO_ID || container.getCacheManager() != null) missCount++;
       // We init this even if there is no CacheManager available, because this is what User expects.
       cache = container.playerInitializer.initPlaybackInfo(playerOrder);
-      // Only save to cold cache when there is a valid CacheManager (key is not null).
-      if (key != null) coldCache.put(key, cache);
+    } else {
+      hitCount++;
     }
 
+    // Hot cache first, so that the entry is protected from eviction by #saveColdInfo.
     if (hotCache != null) hotCache.put(playerOrder, cache);
+    if (itemId != NO_ID) {
+      saveIdInfo(playerOrder, itemId, cache, true);
+    } else {
+      // Only save to cold cache when there is a valid CacheManager (key is not null).
+      saveColdInfo(playerOrder, cache);
+    }
   }
 
   // Will be called from Container#onChildViewDetachedFromWindow(View)
@@ -105,11 +258,10 @@ final class PlaybackInfoCache extends AdapterDataObserver {
   // [2] Remove the hot cache entry of the player.
   final void onPlayerDetached(ToroPlayer player) {
     int playerOrder = player.getPlayerOrder();
-    if (hotCache != null && hotCache.containsKey(playerOrder)) {
-      PlaybackInfo cache = hotCache.remove(playerOrder);
-      Object key = getKey(playerOrder);
-      if (key != null) coldCache.put(key, cache);
-    }
+    PlaybackInfo cache = hotCache != null ? hotCache.remove(playerOrder) : null;
+    IdEntry entry = hotIds.remove(playerOrder);
+    if (entry != null) entry.hot = false;
+    if (cache != null) saveColdInfo(playerOrder, cache);
   }
 
   @SuppressWarnings("unused") final void onPlayerRecycled(ToroPlayer player) {
@@ -119,211 +271,246 @@ final class PlaybackInfoCache extends AdapterDataObserver {
   /// Adapter change events handling
 
   @Override public void onChanged() {
-    if (container.getCacheManager() != null) {
-      for (Integer key : coldKeyToOrderMap.keySet()) {
-        Object cacheKey = getKey(key);
-        coldCache.put(cacheKey, SCRAP);
-        coldKeyToOrderMap.put(key, cacheKey);
+    if (record(EVENT_CHANGED, 0, 0)) return;
+    ToroTrace.beginSection("Toro:onChanged");
+    try {
+      if (container.getCacheManager() != null) {
+        for (int i = 0, size = coldKeyToOrderMap.size(); i < size; i++) {
+          updateColdKeyAt(i);
+        }
       }
-    }
 
-    if (hotCache != null) {
-      for (Integer key : hotCache.keySet()) {
-        hotCache.put(key, SCRAP);
+      if (hotCache != null) {
+        for (int i = 0, size = hotCache.size(); i < size; i++) {
+          hotCache.setValueAt(i, SCRAP);
+        }
       }
+    } finally {
+      ToroTrace.endSection();
     }
   }
 
   @Override public void onItemRangeChanged(final int positionStart, final int itemCount) {
-    if (itemCount == 0) return;
-    if (container.getCacheManager() != null) {
-      Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : coldKeyToOrderMap.keySet()) {
-        if (key >= positionStart && key < positionStart + itemCount) {
-          changedColdKeys.add(key);
+    if (itemCount == 0 || record(EVENT_RANGE_CHANGED, positionStart, itemCount)) return;
+    ToroTrace.beginSection("Toro:onItemRangeChanged");
+    try {
+      final int positionEnd = positionStart + itemCount;
+      if (container.getCacheManager() != null) {
+        for (int i = coldKeyToOrderMap.ceilingIndex(positionStart),
+            end = coldKeyToOrderMap.ceilingIndex(positionEnd); i < end; i++) {
+          updateColdKeyAt(i);
         }
       }
 
-      for (Integer key : changedColdKeys) {
-        Object cacheKey = getKey(key);
-        coldCache.put(cacheKey, SCRAP);
-        coldKeyToOrderMap.put(key, cacheKey);
-      }
-    }
-
-    if (hotCache != null) {
-      Set<Integer> changedHotKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : hotCache.keySet()) {
-        if (key >= positionStart && key < positionStart + itemCount) {
-          changedHotKeys.add(key);
+      if (hotCache != null) {
+        for (int i = hotCache.ceilingIndex(positionStart), end = hotCache.ceilingIndex(positionEnd);
+            i < end; i++) {
+          hotCache.setValueAt(i, SCRAP);
         }
       }
-
-      for (Integer key : changedHotKeys) {
-        hotCache.put(key, SCRAP);
-      }
+    } finally {
+      ToroTrace.endSection();
     }
   }
 
   @Override public void onItemRangeInserted(final int positionStart, final int itemCount) {
-    if (itemCount == 0) return;
-    // Cold cache update
-    if (container.getCacheManager() != null) {
-      // [1] Take keys of old one.
-      // 1.1 Extract subset of keys only:
-      Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : coldKeyToOrderMap.keySet()) {
-        if (key >= positionStart) {
-          changedColdKeys.add(key);
-        }
-      }
-
-      // 1.2 Extract entries from cold cache to a temp cache.
-      final Map<Object, PlaybackInfo> changeColdEntriesCache = new HashMap<>();
-      for (Integer key : changedColdKeys) {
-        changeColdEntriesCache.put(key, coldCache.remove(coldKeyToOrderMap.get(key)));
-      }
-
-      // 1.2 Update cold Cache with new keys
-      for (Integer key : changedColdKeys) {
-        coldCache.put(getKey(key + itemCount), changeColdEntriesCache.get(key));
-      }
-
-      // 1.3 Update coldKeyToOrderMap;
-      for (Integer key : changedColdKeys) {
-        coldKeyToOrderMap.put(key, getKey(key));
-      }
+    if (itemCount == 0 || record(EVENT_RANGE_INSERTED, positionStart, itemCount)) return;
+    ToroTrace.beginSection("Toro:onItemRangeInserted");
+    try {
+      // Cold cache update
+      coldKeyToOrderMap.shift(positionStart, itemCount);
+      coldInfos.shift(positionStart, itemCount);
+      // Hot cache update
+      if (hotCache != null) hotCache.shift(positionStart, itemCount);
+      hotIds.shift(positionStart, itemCount);
+    } finally {
+      ToroTrace.endSection();
     }
+  }
 
-    // [1] Remove cache if there is any appearance
-    if (hotCache != null) {
-      // [2] Shift cache by specific number
-      Map<Integer, PlaybackInfo> changedHotEntriesCache = new HashMap<>();
-      Set<Integer> changedHotKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : hotCache.keySet()) {
-        if (key >= positionStart) {
-          changedHotKeys.add(key);
+  @Override public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+    if (itemCount == 0 || record(EVENT_RANGE_REMOVED, positionStart, itemCount)) return;
+    ToroTrace.beginSection("Toro:onItemRangeRemoved");
+    try {
+      // Cold cache update
+      if (container.getCacheManager() != null) {
+        // Removed items may come back later (for example: a move dispatched as remove then insert),
+        // so keep their PlaybackInfo by key.
+        for (int i = coldKeyToOrderMap.ceilingIndex(positionStart),
+            end = coldKeyToOrderMap.ceilingIndex(positionStart + itemCount); i < end; i++) {
+          Object key = coldKeyToOrderMap.valueAt(i);
+          PlaybackInfo info = coldInfos.valueAt(i);
+          if (key != null && info != null) coldCache.put(key, info);
         }
       }
-
-      for (Integer key : changedHotKeys) {
-        changedHotEntriesCache.put(key, hotCache.remove(key));
+      coldKeyToOrderMap.removeRange(positionStart, itemCount);
+      coldInfos.removeRange(positionStart, itemCount);
+      // Hot cache update
+      if (hotCache != null) hotCache.removeRange(positionStart, itemCount);
+      for (int i = hotIds.ceilingIndex(positionStart),
+          end = hotIds.ceilingIndex(positionStart + itemCount); i < end; i++) {
+        hotIds.valueAt(i).hot = false;
       }
+      hotIds.removeRange(positionStart, itemCount);
+      trim();
+    } finally {
+      ToroTrace.endSection();
+    }
+  }
 
-      for (Integer key : changedHotKeys) {
-        hotCache.put(key + itemCount, changedHotEntriesCache.get(key));
-      }
+  // RecyclerView only supports moving 1 item at a time, so itemCount is ignored.
+  @Override public void onItemRangeMoved(final int fromPos, final int toPos, int itemCount) {
+    if (fromPos == toPos || record(EVENT_RANGE_MOVED, fromPos, toPos)) return;
+    ToroTrace.beginSection("Toro:onItemRangeMoved");
+    try {
+      // [1] Migrate cold cache.
+      coldKeyToOrderMap.move(fromPos, toPos);
+      coldInfos.move(fromPos, toPos);
+      // [2] Migrate hot cache.
+      if (hotCache != null) hotCache.move(fromPos, toPos);
+      hotIds.move(fromPos, toPos);
+    } finally {
+      ToroTrace.endSection();
     }
   }
 
-  @Override public void onItemRangeRemoved(final int positionStart, final int itemCount) {
-    if (itemCount == 0) return;
-    // Cold cache update
-    if (container.getCacheManager() != null) {
-      // [1] Take keys of old one.
-      // 1.1 Extract subset of keys only:
-      Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : coldKeyToOrderMap.keySet()) {
-        if (key >= positionStart + itemCount) changedColdKeys.add(key);
-      }
-      // 1.2 Extract entries from cold cache to a temp cache.
-      final Map<Object, PlaybackInfo> changeColdEntriesCache = new HashMap<>();
-      for (Integer key : changedColdKeys) {
-        changeColdEntriesCache.put(key, coldCache.remove(coldKeyToOrderMap.get(key)));
-      }
+  // Item at this index may be changed, so re-obtain its key and mark it to be re-initialized.
+  private void updateColdKeyAt(int index) {
+    Object key = getKey(coldKeyToOrderMap.keyAt(index));
+    if (key != null) coldCache.remove(key);
+    coldKeyToOrderMap.setValueAt(index, key);
+    coldInfos.setValueAt(index, SCRAP);
+  }
 
-      // 1.2 Update cold Cache with new keys
-      for (Integer key : changedColdKeys) {
-        coldCache.put(getKey(key - itemCount), changeColdEntriesCache.get(key));
-      }
+  // Track the PlaybackInfo by order, if there is a valid key for it.
+  private void saveColdInfo(int order, @NonNull PlaybackInfo info) {
+    lastOrder = order;
+    long itemId = getItemId(order);
+    if (itemId != NO_ID) {
+      saveIdInfo(order, itemId, info, false);
+      return;
+    }
 
-      // 1.3 Update coldKeyToOrderMap;
-      for (Integer key : changedColdKeys) {
-        coldKeyToOrderMap.put(key, getKey(key));
-      }
+    if (coldKeyToOrderMap.containsKey(order)) {
+      coldInfos.put(order, info);
+      return;
     }
 
-    // [1] Remove cache if there is any appearance
-    if (hotCache != null) {
-      for (int i = 0; i < itemCount; i++) {
-        hotCache.remove(positionStart + i);
-      }
+    Object key = getKey(order);
+    if (key != null) {
+      coldCache.remove(key);
+      coldKeyToOrderMap.put(order, key);
+      coldInfos.put(order, info);
+      trim();
+    }
+  }
 
-      // [2] Shift cache by specific number
-      Map<Integer, PlaybackInfo> changedHotEntriesCache = new HashMap<>();
-      Set<Integer> changedHotKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : hotCache.keySet()) {
-        if (key >= positionStart + itemCount) changedHotKeys.add(key);
-      }
+  // Evict the entries above the limit.
+  private void trim() {
+    if (replaying) return;  // Done once the batch is applied.
+    int excess = coldCache.size() + coldInfos.size() + idCache.size() - maxEntries;
+    if (excess <= 0) return;
+    // [1] Least recently used entries those are not tracked by order.
+    for (Iterator<?> it = coldCache.values().iterator(); excess > 0 && it.hasNext(); excess--) {
+      it.next();
+      it.remove();
+      evictionCount++;
+    }
 
-      for (Integer key : changedHotKeys) {
-        changedHotEntriesCache.put(key, hotCache.remove(key));
-      }
+    // [2] Tracked entries, from the end farther from last accessed order. Skip attached Players.
+    while (excess > 0 && coldInfos.size() > 0) {
+      int lastIndex = coldInfos.size() - 1;
+      int first = coldInfos.keyAt(0);
+      int last = coldInfos.keyAt(lastIndex);
+      boolean firstHot = hotCache != null && hotCache.containsKey(first);
+      boolean lastHot = hotCache != null && hotCache.containsKey(last);
+      if (firstHot && lastHot) break;
+      int order = lastHot || (!firstHot && lastOrder - first >= last - lastOrder) ? first : last;
+      coldKeyToOrderMap.remove(order);
+      coldInfos.remove(order);
+      evictionCount++;
+      excess--;
+    }
 
-      for (Integer key : changedHotKeys) {
-        hotCache.put(key - itemCount, changedHotEntriesCache.get(key));
+    // [3] Entries keyed by item id, least recently used first. Skip attached Players.
+    for (IdEntry entry = eldestId; excess > 0 && entry != null; ) {
+      IdEntry newer = entry.newer;
+      if (!entry.hot) {
+        idCache.remove(entry.id);
+        unlink(entry);
+        evictionCount++;
+        excess--;
       }
+      entry = newer;
     }
   }
 
-  // Dude I wanna test this thing >.<
-  @Override public void onItemRangeMoved(final int fromPos, final int toPos, int itemCount) {
-    if (fromPos == toPos) return;
-    final int low = fromPos < toPos ? fromPos : toPos;
-    final int high = fromPos + toPos - low;
-    final int shift = fromPos < toPos ? -1 : 1;  // how item will be shifted due to the move
-
-    // [1] Migrate cold cache.
-    if (container.getCacheManager() != null) {
-      // 1.1 Extract subset of keys only:
-      Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : coldKeyToOrderMap.keySet()) {
-        if (key >= low && key <= high) changedColdKeys.add(key);
-      }
-      // 1.2 Extract entries from cold cache to a temp cache.
-      final Map<Object, PlaybackInfo> changeColdEntries = new HashMap<>();
-      for (Integer key : changedColdKeys) {
-        changeColdEntries.put(key, coldCache.remove(coldKeyToOrderMap.get(key)));
-      }
+  // Save the PlaybackInfo of an item by its id, as the most recently used entry. If the Player is
+  // attached, the entry is marked hot first so that it is never evicted.
+  private void saveIdInfo(int order, long itemId, @NonNull PlaybackInfo info, boolean attached) {
+    lastOrder = order;
+    IdEntry entry = idCache.get(itemId);
+    boolean added = entry == null;
+    if (added) {
+      entry = new IdEntry(itemId);
+      idCache.put(itemId, entry);
+    } else {
+      unlink(entry);
+    }
+    entry.info = info;
+    linkNewest(entry);
+    if (attached) {
+      IdEntry previous = hotIds.put(order, entry);
+      if (previous != null && previous != entry) previous.hot = false;
+      entry.hot = true;
+    }
+    if (added) trim();
+  }
 
-      // 1.2 Update cold Cache with new keys
-      for (Integer key : changedColdKeys) {
-        if (key == low) {
-          coldCache.put(getKey(high), changeColdEntries.get(key));
-        } else {
-          coldCache.put(getKey(key + shift), changeColdEntries.get(key));
-        }
-      }
+  @Nullable private PlaybackInfo getById(long itemId) {
+    IdEntry entry = idCache.get(itemId);
+    if (entry == null) return null;
+    unlink(entry);
+    linkNewest(entry);
+    return entry.info;
+  }
 
-      // 1.3 Update coldKeyToOrderMap;
-      for (Integer key : changedColdKeys) {
-        coldKeyToOrderMap.put(key, getKey(key));
-      }
-    }
+  private void linkNewest(@NonNull IdEntry entry) {
+    entry.older = newestId;
+    entry.newer = null;
+    if (newestId != null) newestId.newer = entry;
+    newestId = entry;
+    if (eldestId == null) eldestId = entry;
+  }
 
-    // [2] Migrate hot cache.
-    if (hotCache != null) {
-      Set<Integer> changedHotKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
-      for (Integer key : hotCache.keySet()) {
-        if (key >= low && key <= high) changedHotKeys.add(key);
-      }
+  private void unlink(@NonNull IdEntry entry) {
+    if (entry.newer != null) entry.newer.older = entry.older;
+    if (entry.older != null) entry.older.newer = entry.newer;
+    if (newestId == entry) newestId = entry.older;
+    if (eldestId == entry) eldestId = entry.newer;
+    entry.newer = null;
+    entry.older = null;
+  }
 
-      Map<Integer, PlaybackInfo> changedHotEntriesCache = new HashMap<>();
-      for (Integer key : changedHotKeys) {
-        changedHotEntriesCache.put(key, hotCache.remove(key));
-      }
+  private void clearHotIds() {
+    for (int i = 0, size = hotIds.size(); i < size; i++) {
+      hotIds.valueAt(i).hot = false;
+    }
+    hotIds.clear();
+  }
 
-      for (Integer key : changedHotKeys) {
-        if (key == low) {
-          hotCache.put(high, changedHotEntriesCache.get(key));
-        } else {
-          hotCache.put(key + shift, changedHotEntriesCache.get(key));
-        }
-      }
+  // Stable id of the item at a position, or NO_ID if the stable id mode is not used: the Adapter
+  // has no stable ids, or there is a CacheManager which takes precedence.
+  long getItemId(int position) {
+    if (position == RecyclerView.NO_POSITION || container.getCacheManager() != null) return NO_ID;
+    RecyclerView.Adapter adapter = container.getAdapter();
+    if (adapter == null || !adapter.hasStableIds() || position >= adapter.getItemCount()) {
+      return NO_ID;
     }
+    return adapter.getItemId(position);
   }
 
-  @Nullable private Object getKey(int position) {
+  @Nullable Object getKey(int position) {
     return position == RecyclerView.NO_POSITION ? null : container.getCacheManager() == null ? null
         : container.getCacheManager().getKeyForOrder(position);
   }
@@ -339,28 +526,48 @@ final class PlaybackInfoCache extends AdapterDataObserver {
       info = container.playerInitializer.initPlaybackInfo(position);
     }
 
-    Object key = getKey(position);
-    return info != null ? info :  //
-        key != null ? coldCache.get(key) : container.playerInitializer.initPlaybackInfo(position);
+    long itemId = info == null ? getItemId(position) : NO_ID;
+    if (itemId != NO_ID) {
+      info = getById(itemId);
+    } else if (info == null && container.getCacheManager() != null) {
+      info = coldInfos.get(position);
+      if (info == null) {
+        Object key = getKey(position);
+        if (key != null) info = coldCache.get(key);
+      }
+    }
+
+    return info != null ? info : container.playerInitializer.initPlaybackInfo(position);
   }
 
   // Call by Container#savePlaybackInfo and that method is called right before any pausing.
   final void savePlaybackInfo(int position, @NonNull PlaybackInfo playbackInfo) {
     ToroUtil.checkNotNull(playbackInfo);
     if (hotCache != null) hotCache.put(position, playbackInfo);
-    Object key = getKey(position);
-    if (key != null) coldCache.put(key, playbackInfo);
+    saveColdInfo(position, playbackInfo);
+    PlaybackInfoStore store = container.getPlaybackInfoStore();
+    if (store != null) {
+      Object key = coldKeyToOrderMap.get(position);
+      if (key == null) key = getKey(position);
+      if (key != null) {
+        if (playbackInfo == SCRAP) {
+          store.remove(key);
+        } else {
+          store.save(key, playbackInfo);
+        }
+      }
+    }
   }
 
   @NonNull SparseArray<PlaybackInfo> saveStates() {
     SparseArray<PlaybackInfo> states = new SparseArray<>();
     if (container.getCacheManager() != null) {
-      for (Map.Entry<Integer, Object> entry : coldKeyToOrderMap.entrySet()) {
-        states.put(entry.getKey(), coldCache.get(entry.getValue()));
+      for (int i = 0, size = coldInfos.size(); i < size; i++) {
+        states.put(coldInfos.keyAt(i), coldInfos.valueAt(i));
       }
     } else if (hotCache != null) {
-      for (Map.Entry<Integer, PlaybackInfo> entry : hotCache.entrySet()) {
-        states.put(entry.getKey(), entry.getValue());
+      for (int i = 0, size = hotCache.size(); i < size; i++) {
+        states.put(hotCache.keyAt(i), hotCache.valueAt(i));
       }
     }
     return states;
@@ -371,16 +578,39 @@ final class PlaybackInfoCache extends AdapterDataObserver {
     if (savedStates != null && (cacheSize = savedStates.size()) > 0) {
       for (int i = 0; i < cacheSize; i++) {
         int order = savedStates.keyAt(i);
-        Object key = getKey(order);
-        coldKeyToOrderMap.put(order, key);
         PlaybackInfo playbackInfo = (PlaybackInfo) savedStates.get(order);
         if (playbackInfo != null) this.savePlaybackInfo(order, playbackInfo);
       }
     }
   }
 
+  // Stable ids of an Adapter mean nothing to another one.
+  final void clearIds() {
+    idCache.clear();
+    newestId = null;
+    eldestId = null;
+    clearHotIds();
+  }
+
   final void clearCache() {
     coldCache.clear();
+    clearIds();
+    coldKeyToOrderMap.clear();
+    coldInfos.clear();
     if (hotCache != null) hotCache.clear();
   }
+
+  // An entry of idCache, also linked in the access order.
+  static final class IdEntry {
+
+    final long id;
+    PlaybackInfo info;
+    boolean hot;  // used by an attached Player.
+    IdEntry newer;
+    IdEntry older;
+
+    IdEntry(long id) {
+      this.id = id;
+    }
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RestrictTo;
+import im.ene.toro.ToroPlayer;
+
+/**
+ * Quality of experience of one playback session of a {@link ToroPlayer}: from a
+ * {@link ToroPlayer#play()} call by the {@link Container} until the player is paused or released.
+ * See {@link Container#setPlaybackMetricsListener(Listener)}.
+ *
+ * An instance is reused for the next sessions of the same player, so it must not be kept after
+ * {@link Listener#onPlaybackMetrics(ToroPlayer, Object, PlaybackMetrics)} returns.
+ *
+ * @author eneim (2018/08/22).
+ */
+@SuppressWarnings("WeakerAccess") //
+public final class PlaybackMetrics {
+
+  // Events reported by the player helpers, see Container#recordPlaybackEvent.
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) public static final int EVENT_BUFFERING = 1;
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) public static final int EVENT_READY = 2;
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) public static final int EVENT_FIRST_FRAME = 3;
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) public static final int EVENT_DROPPED_FRAMES = 4;
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) public static final int EVENT_BYTES_LOADED = 5;
+
+  public static final long TIME_UNSET = -1;
+
+  long selectionToPlayMs = TIME_UNSET;
+  long playToFirstFrameMs = TIME_UNSET;
+  int rebufferCount;
+  long rebufferDurationMs;
+  int droppedFrames;
+  long bytesLoaded;
+  long playDurationMs;
+
+  PlaybackMetrics() {
+  }
+
+  /**
+   * @return time from the selection of the player to its {@link ToroPlayer#play()} call, in
+   * milliseconds. It includes the delay of the {@link im.ene.toro.PlayerDispatcher}.
+   * {@link #TIME_UNSET} if the player was not started by a selection.
+   */
+  public long getSelectionToPlayMs() {
+    return selectionToPlayMs;
+  }
+
+  /**
+   * @return time from the {@link ToroPlayer#play()} call to the first rendered frame, in
+   * milliseconds. 0 if a frame was rendered already (for example by a pre-warm, or a previous
+   * session), {@link #TIME_UNSET} if no frame was rendered.
+   */
+  public long getPlayToFirstFrameMs() {
+    return playToFirstFrameMs;
+  }
+
+  /**
+   * @return number of times the playback stalled to buffer, after it started.
+   */
+  public int getRebufferCount() {
+    return rebufferCount;
+  }
+
+  /**
+   * @return total time spent in those stalls, in milliseconds.
+   */
+  public long getRebufferDurationMs() {
+    return rebufferDurationMs;
+  }
+
+  public int getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  /**
+   * @return bytes loaded for the media during the session, as reported by the player. The
+   * ExoPlayer extension reports them for the Playables of its DefaultExoCreator only, so this is 0
+   * for players created by other ExoCreators.
+   */
+  public long getBytesLoaded() {
+    return bytesLoaded;
+  }
+
+  /**
+   * @return duration of the session, from the {@link ToroPlayer#play()} call, in milliseconds.
+   */
+  public long getPlayDurationMs() {
+    return playDurationMs;
+  }
+
+  void reset() {
+    selectionToPlayMs = TIME_UNSET;
+    playToFirstFrameMs = TIME_UNSET;
+    rebufferCount = 0;
+    rebufferDurationMs = 0;
+    droppedFrames = 0;
+    bytesLoaded = 0;
+    playDurationMs = 0;
+  }
+
+  @Override public String toString() {
+    return "PlaybackMetrics{"
+        + "selectionToPlayMs=" + selectionToPlayMs
+        + ", playToFirstFrameMs=" + playToFirstFrameMs
+        + ", rebufferCount=" + rebufferCount
+        + ", rebufferDurationMs=" + rebufferDurationMs
+        + ", droppedFrames=" + droppedFrames
+        + ", bytesLoaded=" + bytesLoaded
+        + ", playDurationMs=" + playDurationMs
+        + '}';
+  }
+
+  /**
+   * Receives the {@link PlaybackMetrics} of each playback session, on main thread.
+   */
+  public interface Listener {
+
+    /**
+     * @param player the player of the session.
+     * @param key cache key of the player's order from the {@link im.ene.toro.CacheManager}, if
+     * any.
+     * @param metrics the metrics of the session. Only valid during this call.
+     */
+    void onPlaybackMetrics(@NonNull ToroPlayer player, @Nullable Object key,
+        @NonNull PlaybackMetrics metrics);
+  }
+}
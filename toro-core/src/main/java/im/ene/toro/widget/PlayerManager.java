@@ -19,13 +19,15 @@ package im.ene.toro.widget;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
-import android.support.v4.util.ArraySet;
+import android.support.annotation.Nullable;
+import android.support.v4.util.ArrayMap;
 import im.ene.toro.PlayerDispatcher;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroTrace;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Manage the collection of {@link ToroPlayer}s for a specific {@link Container}.
@@ -40,34 +42,141 @@ final class PlayerManager implements Handler.Callback {
 
   private static final String TAG = "ToroLib:Manager";
   private Handler handler;
+  @NonNull private final MetricsRecorder metrics;
 
-  // Make sure each ToroPlayer will present only once in this Manager.
-  private final Set<ToroPlayer> players = new ArraySet<>();
+  // Make sure each ToroPlayer will present only once in this Manager. Players are kept sorted by
+  // their orders, so a selection pass doesn't need to copy or sort them again.
+  private final ArrayList<ToroPlayer> players = new ArrayList<>();
+
+  PlayerManager(@NonNull MetricsRecorder metrics) {
+    this.metrics = metrics;
+  }
 
   boolean attachPlayer(@NonNull ToroPlayer player) {
-    return players.add(player);
+    if (indexOf(player) >= 0) return false;
+    players.add(insertionIndex(player.getPlayerOrder()), player);
+    return true;
   }
 
   boolean detachPlayer(@NonNull ToroPlayer player) {
     handler.removeCallbacksAndMessages(player);
-    return players.remove(player);
+    stopWaiting(player);
+    int index = indexOf(player);
+    if (index < 0) return false;
+    players.remove(index);
+    return true;
   }
 
   boolean manages(@NonNull ToroPlayer player) {
-    return players.contains(player);
+    return indexOf(player) >= 0;
   }
 
   /**
-   * Return a "Copy" of the collection of players this manager is managing.
+   * Return a "Copy" of the collection of players this manager is managing, sorted by order.
    *
    * @return a non null collection of Players those a managed.
    */
   @NonNull List<ToroPlayer> getPlayers() {
+    sortByOrder();
     return new ArrayList<>(this.players);
   }
 
+  /**
+   * Return the collection of players this manager is managing, sorted by order. This is the live
+   * collection, not a copy: caller must not modify it, and must iterate it backward if players
+   * can be detached during the iteration.
+   *
+   * @return a non null collection of Players those a managed.
+   */
+  @NonNull List<ToroPlayer> getSortedPlayers() {
+    sortByOrder();
+    return this.players;
+  }
+
+  private int indexOf(@NonNull ToroPlayer player) {
+    for (int i = 0, size = players.size(); i < size; i++) {
+      if (players.get(i) == player) return i;
+    }
+    return -1;
+  }
+
+  // Binary search for the position to insert a player of an order, keeping the list sorted.
+  private int insertionIndex(int order) {
+    int low = 0;
+    int high = players.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (players.get(mid).getPlayerOrder() <= order) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  // Players' orders only change relatively to each other when the Adapter moves its items, so the
+  // list is almost always sorted. Insertion sort is then O(n), and unlike Collections#sort, it
+  // allocates nothing.
+  private void sortByOrder() {
+    for (int i = 1, size = players.size(); i < size; i++) {
+      ToroPlayer player = players.get(i);
+      int order = player.getPlayerOrder();
+      int j = i - 1;
+      while (j >= 0 && players.get(j).getPlayerOrder() > order) {
+        players.set(j + 1, players.get(j));
+        j--;
+      }
+      players.set(j + 1, player);
+    }
+  }
+
   void initialize(@NonNull ToroPlayer player, Container container) {
-    player.initialize(container, container.getPlaybackInfo(player.getPlayerOrder()));
+    // A parked player is about to be used again, take it back.
+    ToroTrace.beginSection("Toro:initialize");
+    try {
+      unpark(player, container.playbackInfoCache.getKey(player.getPlayerOrder()));
+      player.initialize(container, container.getPlaybackInfo(player.getPlayerOrder()));
+    } finally {
+      ToroTrace.endSection();
+    }
+  }
+
+  /**
+   * Play the player as the dispatcher decides: after its delay, or once the player is ready if
+   * both support it (see {@link PlayerDispatcher.Conditional}).
+   */
+  void play(@NonNull ToroPlayer player, @NonNull PlayerDispatcher dispatcher) {
+    metrics.onPlayRequested(player);
+    int delay = dispatcher.getDelayToPlay(player);
+    if (!(dispatcher instanceof PlayerDispatcher.Conditional)) {
+      play(player, delay);
+      return;
+    }
+
+    if (!(player instanceof ToroPlayer.ReadinessAware)) {
+      play(player, PlayerDispatcher.DELAY_NONE);
+      return;
+    }
+
+    if (delay < PlayerDispatcher.DELAY_INFINITE) throw new IllegalArgumentException("Too negative");
+    if (handler == null) return;
+    handler.removeMessages(MSG_PLAY, player);
+    PlayerDispatcher.Conditional conditional = (PlayerDispatcher.Conditional) dispatcher;
+    ToroPlayer.ReadinessAware readiness = (ToroPlayer.ReadinessAware) player;
+    if (delay == PlayerDispatcher.DELAY_NONE || conditional.isReadyToPlay(readiness)) {
+      stopWaiting(player);
+      start(player);
+      return;
+    }
+
+    // Wait for the condition, with the delay as max wait.
+    waiting.put(player, conditional);
+    readiness.setOnReadinessChangedListener(readinessListener);
+    readiness.prewarm();  // Make sure it is loading.
+    if (delay != PlayerDispatcher.DELAY_INFINITE) {
+      handler.sendMessageDelayed(handler.obtainMessage(MSG_PLAY, player), delay);
+    }
   }
 
   void play(@NonNull ToroPlayer player, int delay) {
@@ -77,7 +186,7 @@ final class PlayerManager implements Handler.Callback {
     if (delay == PlayerDispatcher.DELAY_INFINITE) {
       // do nothing
     } else if (delay == PlayerDispatcher.DELAY_NONE) {
-      player.play();
+      start(player);
     } else {
       handler.sendMessageDelayed(handler.obtainMessage(MSG_PLAY, player), delay);
     }
@@ -85,33 +194,71 @@ final class PlayerManager implements Handler.Callback {
 
   void pause(@NonNull ToroPlayer player) {
     handler.removeCallbacksAndMessages(player); // remove all msg sent for the player
-    player.pause();
+    stopWaiting(player);
+    ToroTrace.beginSection("Toro:pause");
+    try {
+      player.pause();
+    } finally {
+      ToroTrace.endSection();
+    }
+    metrics.onSessionEnded(player);
+  }
+
+  // All the play calls go through here, so the metrics see the start of each session.
+  private void start(@NonNull ToroPlayer player) {
+    metrics.onPlay(player);
+    ToroTrace.beginSection("Toro:play");
+    try {
+      player.play();
+    } finally {
+      ToroTrace.endSection();
+    }
   }
 
   // return false if this manager could not release the player.
   // normally when this manager doesn't manage the player.
   boolean release(@NonNull ToroPlayer player) {
-    if (handler != null) handler.removeCallbacksAndMessages(null);
+    // Only this player's messages: the others may be waiting for their max wait to pass.
+    if (handler != null) handler.removeCallbacksAndMessages(player);
+    stopWaiting(player);
+    scheduleEviction();
     if (manages(player)) {
-      player.release();
+      releasePlayer(player);
       return true;
     } else {
       return false;
     }
   }
 
+  // All the release calls go through here, so the metrics see the end of each player.
+  private void releasePlayer(@NonNull ToroPlayer player) {
+    ToroTrace.beginSection("Toro:release");
+    try {
+      player.release();
+    } finally {
+      ToroTrace.endSection();
+    }
+    metrics.onPlayerReleased(player);
+  }
+
   void recycle(ToroPlayer player) {
-    // no-ops, place holder only.
     if (handler != null) handler.removeCallbacksAndMessages(player);
+    stopWaiting(player);
+    // The ViewHolder will be bound to another item, so its resource cannot be reused anymore.
+    int index = indexOfParked(player);
+    if (index >= 0) evictAt(index);
   }
 
   void clear() {
     if (handler != null) handler.removeCallbacksAndMessages(null);
+    stopAllWaiting();
     this.players.clear();
+    evictAll();
   }
 
   void deferPlaybacks() {
     if (handler != null) handler.removeMessages(MSG_PLAY);
+    stopAllWaiting();
   }
 
   void onAttach() {
@@ -120,18 +267,217 @@ final class PlayerManager implements Handler.Callback {
   }
 
   void onDetach() {
+    stopAllWaiting();
+    evictAll();
     if (handler != null) {
       handler.removeCallbacksAndMessages(null);
       handler = null;
     }
   }
 
+  ////// Conditional play
+
+  // Players waiting for the condition of their dispatcher before playing.
+  private final ArrayMap<ToroPlayer, PlayerDispatcher.Conditional> waiting = new ArrayMap<>();
+
+  private final ToroPlayer.OnReadinessChangedListener readinessListener =
+      new ToroPlayer.OnReadinessChangedListener() {
+        @Override public void onReadinessChanged(@NonNull ToroPlayer player) {
+          PlayerDispatcher.Conditional conditional = waiting.get(player);
+          if (conditional == null) return;
+          if (!conditional.isReadyToPlay((ToroPlayer.ReadinessAware) player)) return;
+          if (handler != null) handler.removeMessages(MSG_PLAY, player);
+          stopWaiting(player);
+          start(player);
+        }
+      };
+
+  boolean isWaitingToPlay(@NonNull ToroPlayer player) {
+    return waiting.containsKey(player);
+  }
+
+  // Cancel a delayed or conditional play request, for a player that is not selected anymore.
+  void cancelPlay(@NonNull ToroPlayer player) {
+    if (handler != null) handler.removeMessages(MSG_PLAY, player);
+    stopWaiting(player);
+  }
+
+  private void stopWaiting(@NonNull ToroPlayer player) {
+    if (waiting.remove(player) != null) {
+      ((ToroPlayer.ReadinessAware) player).setOnReadinessChangedListener(null);
+    }
+  }
+
+  private void stopAllWaiting() {
+    for (int i = waiting.size() - 1; i >= 0; i--) {
+      ((ToroPlayer.ReadinessAware) waiting.keyAt(i)).setOnReadinessChangedListener(null);
+    }
+    waiting.clear();
+  }
+
+  ////// Keep-warm
+
+  /* pkg */ int keepWarmCapacity = 0;  // max number of parked players. 0 = disabled.
+  /* pkg */ long keepWarmDuration = 0;  // max time a player is parked, in milliseconds.
+
+  // Players those left the viewport but are not released yet. Least recently parked first.
+  private final ArrayList<ParkedPlayer> parked = new ArrayList<>();
+
+  void setKeepWarm(int capacity, long duration) {
+    this.keepWarmCapacity = capacity;
+    this.keepWarmDuration = duration;
+    if (capacity <= 0 || duration <= 0) {
+      evictAll();
+    } else {
+      while (parked.size() > capacity) evictAt(0);
+    }
+    scheduleEviction();
+  }
+
+  /**
+   * Park a player that leaves the viewport, instead of releasing it. A parked player keeps its
+   * resource, and is released once it is evicted: when there are more than
+   * {@link #keepWarmCapacity} parked players, when it is parked for longer than
+   * {@link #keepWarmDuration}, or when its ViewHolder is recycled.
+   *
+   * @param player the player to park.
+   * @param key the cache key of the player's order, if any.
+   * @return {@code true} if the player is parked, {@code false} if keep-warm is disabled, in that
+   * case the caller should release the player itself.
+   */
+  boolean park(@NonNull ToroPlayer player, @Nullable Object key) {
+    if (keepWarmCapacity <= 0 || keepWarmDuration <= 0 || handler == null) return false;
+    int index = indexOfParked(player);
+    ParkedPlayer entry = index >= 0 ? parked.remove(index) : new ParkedPlayer(player);
+    entry.order = player.getPlayerOrder();
+    entry.key = key;
+    entry.parkedAt = SystemClock.uptimeMillis();
+    parked.add(entry);
+    while (parked.size() > keepWarmCapacity) evictAt(0);
+    scheduleEviction();
+    return true;
+  }
+
+  /**
+   * Take a player out of the parked ones, if it is. If it was parked for another item (the same
+   * ViewHolder is re-bound to other order and key), it is released first. Items are compared by
+   * their keys if both have one, by their orders otherwise.
+   */
+  void unpark(@NonNull ToroPlayer player, @Nullable Object key) {
+    int index = indexOfParked(player);
+    if (index < 0) return;
+    ParkedPlayer entry = parked.remove(index);
+    boolean sameItem = key != null && entry.key != null ? key.equals(entry.key)
+        : entry.order != NO_ORDER && entry.order == player.getPlayerOrder();
+    if (!sameItem) releasePlayer(player);
+  }
+
+  // The parked orders follow the Adapter changes, like the orders of the cached PlaybackInfo.
+
+  void onItemRangeInserted(int positionStart, int itemCount) {
+    for (int i = 0, size = parked.size(); i < size; i++) {
+      ParkedPlayer entry = parked.get(i);
+      if (entry.order >= positionStart) entry.order += itemCount;
+    }
+  }
+
+  void onItemRangeRemoved(int positionStart, int itemCount) {
+    for (int i = 0, size = parked.size(); i < size; i++) {
+      ParkedPlayer entry = parked.get(i);
+      if (entry.order >= positionStart + itemCount) {
+        entry.order -= itemCount;
+      } else if (entry.order >= positionStart) {
+        entry.order = NO_ORDER;  // Its item is removed.
+      }
+    }
+  }
+
+  void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+    for (int i = 0, size = parked.size(); i < size; i++) {
+      ParkedPlayer entry = parked.get(i);
+      if (entry.order == NO_ORDER) continue;
+      if (entry.order >= fromPosition && entry.order < fromPosition + itemCount) {
+        entry.order += toPosition - fromPosition;
+      } else if (fromPosition < toPosition) {
+        if (entry.order >= fromPosition + itemCount && entry.order < toPosition + itemCount) {
+          entry.order -= itemCount;
+        }
+      } else if (entry.order >= toPosition && entry.order < fromPosition) {
+        entry.order += itemCount;
+      }
+    }
+  }
+
+  // The whole data set changed: the orders mean nothing anymore, only the keys do.
+  void onDataSetChanged() {
+    for (int i = 0, size = parked.size(); i < size; i++) {
+      parked.get(i).order = NO_ORDER;
+    }
+  }
+
+  boolean isParked(@NonNull ToroPlayer player) {
+    return indexOfParked(player) >= 0;
+  }
+
+  private int indexOfParked(@NonNull ToroPlayer player) {
+    for (int i = 0, size = parked.size(); i < size; i++) {
+      if (parked.get(i).player == player) return i;
+    }
+    return -1;
+  }
+
+  private void evictAt(int index) {
+    releasePlayer(parked.remove(index).player);
+  }
+
+  private void evictAll() {
+    for (int i = parked.size() - 1; i >= 0; i--) {
+      evictAt(i);
+    }
+  }
+
+  private void evictExpired() {
+    long now = SystemClock.uptimeMillis();
+    // Least recently parked first, so stop at the first one that is still in grace period.
+    while (!parked.isEmpty() && now - parked.get(0).parkedAt >= keepWarmDuration) {
+      evictAt(0);
+    }
+    scheduleEviction();
+  }
+
+  private void scheduleEviction() {
+    if (handler == null) return;
+    handler.removeMessages(MSG_EVICT);
+    if (parked.isEmpty()) return;
+    long delay = parked.get(0).parkedAt + keepWarmDuration - SystemClock.uptimeMillis();
+    handler.sendEmptyMessageDelayed(MSG_EVICT, Math.max(0, delay));
+  }
+
+  // Order of a parked player whose item is removed or unknown.
+  private static final int NO_ORDER = -1;
+
+  static final class ParkedPlayer {
+
+    final ToroPlayer player;
+    int order;
+    Object key;
+    long parkedAt;
+
+    ParkedPlayer(ToroPlayer player) {
+      this.player = player;
+    }
+  }
+
   @SuppressWarnings("WeakerAccess") static final int MSG_PLAY = 100;
+  @SuppressWarnings("WeakerAccess") static final int MSG_EVICT = 101;
 
   @Override public boolean handleMessage(Message msg) {
     if (msg.what == MSG_PLAY && msg.obj instanceof ToroPlayer) {
       ToroPlayer player = (ToroPlayer) msg.obj;
-      player.play();
+      stopWaiting(player);  // Max wait passed.
+      start(player);
+    } else if (msg.what == MSG_EVICT) {
+      evictExpired();
     }
     return true;
   }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import im.ene.toro.ToroPlayer;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * @author eneim (2018/08/08).
+ *
+ * Prepares the next few {@link ToroPlayer}s ahead of the scroll direction, so that they can start
+ * faster once they are selected. Only laid out players can be pre-warmed: the ones partially
+ * visible, or off-screen but kept by the LayoutManager (for example by extra layout space).
+ *
+ * A pre-warmed player is initialized, then asked to prepare its media if it is a
+ * {@link ToroPlayer.Prewarmable}. It stays pre-warmed until it starts playing (a hit), or is
+ * released by the Container (wasted). Starting a player that was not pre-warmed is a miss.
+ */
+final class PrewarmWindow {
+
+  /* pkg */ int size = 0;  // number of players ahead of the selected ones. 0 = disabled.
+  /* pkg */ int budget = 0;  // max number of players pre-warmed at the same time.
+  /* pkg */ int direction = 1;  // +1 = toward larger orders, -1 = toward smaller orders.
+
+  /* pkg */ int hitCount;
+  /* pkg */ int missCount;
+  /* pkg */ int wastedCount;
+
+  private final ArrayList<ToroPlayer> prewarmed = new ArrayList<>();
+  private final ArrayList<ToroPlayer> buffer = new ArrayList<>();  // reused by #update.
+
+  boolean isEnabled() {
+    return size > 0 && budget > 0;
+  }
+
+  void onScrolled(int delta) {
+    if (delta != 0) direction = delta > 0 ? 1 : -1;
+  }
+
+  // Called right before a selected player is asked to play.
+  void onPlayerStarting(@NonNull ToroPlayer player) {
+    if (!isEnabled()) return;
+    if (prewarmed.remove(player)) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+  }
+
+  // Called when a player is released, or detached from the Container.
+  void onPlayerReleased(@NonNull ToroPlayer player) {
+    if (prewarmed.remove(player)) wastedCount++;
+  }
+
+  /**
+   * Pre-warm the players next to the selected ones, in the scroll direction.
+   *
+   * @param container the Container to pre-warm for.
+   * @param selected players selected to play in this pass.
+   */
+  void update(@NonNull Container container, @NonNull Collection<ToroPlayer> selected) {
+    if (!isEnabled() || prewarmed.size() >= budget) return;
+    RecyclerView.LayoutManager layout = container.getLayoutManager();
+    int childCount = layout != null ? layout.getChildCount() : 0;
+    if (childCount <= 0) return;
+
+    // The window starts after the farthest selected player, or from the edge if there is none.
+    int anchor = direction > 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    for (ToroPlayer player : selected) {
+      int order = player.getPlayerOrder();
+      anchor = direction > 0 ? Math.max(anchor, order) : Math.min(anchor, order);
+    }
+
+    buffer.clear();
+    for (int i = 0; i < childCount; i++) {
+      View child = layout.getChildAt(i);
+      RecyclerView.ViewHolder holder = container.getChildViewHolder(child);
+      if (!(holder instanceof ToroPlayer)) continue;
+      ToroPlayer player = (ToroPlayer) holder;
+      int order = player.getPlayerOrder();
+      if (direction > 0 ? order <= anchor : order >= anchor) continue;
+      // Insert by distance to the anchor, nearest first.
+      int index = buffer.size();
+      while (index > 0 && (direction > 0 ? buffer.get(index - 1).getPlayerOrder() > order
+          : buffer.get(index - 1).getPlayerOrder() < order)) {
+        index--;
+      }
+      buffer.add(index, player);
+    }
+
+    for (int i = 0, count = Math.min(size, buffer.size()); i < count; i++) {
+      if (prewarmed.size() >= budget) break;
+      ToroPlayer player = buffer.get(i);
+      if (player.isPlaying() || prewarmed.contains(player)) continue;
+      container.playerManager.initialize(player, container);
+      if (player instanceof ToroPlayer.Prewarmable) ((ToroPlayer.Prewarmable) player).prewarm();
+      prewarmed.add(player);
+    }
+    buffer.clear();
+  }
+
+  void clear() {
+    prewarmed.clear();
+    buffer.clear();
+  }
+}
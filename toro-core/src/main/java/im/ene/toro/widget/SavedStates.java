@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.Parcel;
+import android.util.SparseArray;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.VolumeInfo;
+
+/**
+ * @author eneim (2018/08/27).
+ *
+ * Parcel encoding of the PlaybackInfo cache saved by {@link Container.PlayerViewState}. Plain
+ * {@link PlaybackInfo}s, the most of the entries, are packed as primitives, without the class
+ * names and type tags of {@link Parcel#writeSparseArray(SparseArray)}.
+ */
+final class SavedStates {
+
+  private static final int SIGN_BIT = 0x80000000;
+
+  private SavedStates() {
+    throw new RuntimeException("Meh!");
+  }
+
+  // Layout: [count] then [order, window, position, volume] for each plain PlaybackInfo, then a
+  // SparseArray of the others. A volume is never negative, so the mute flag is its sign bit: a
+  // muted volume v is written as -v, and a muted 0 as -0.0f. Both are read back exactly.
+  static void writeStates(Parcel dest, SparseArray<?> states) {
+    int size = states != null ? states.size() : 0;
+    int packed = 0;
+    for (int i = 0; i < size; i++) {
+      Object value = states.valueAt(i);
+      if (value != null && value.getClass() == PlaybackInfo.class) packed++;
+    }
+
+    dest.writeInt(packed);
+    SparseArray<Object> others = null;
+    for (int i = 0; i < size; i++) {
+      Object value = states.valueAt(i);
+      if (value == null) continue;
+      if (value.getClass() == PlaybackInfo.class) {
+        PlaybackInfo info = (PlaybackInfo) value;
+        VolumeInfo volumeInfo = info.getVolumeInfo();
+        dest.writeInt(states.keyAt(i));
+        dest.writeInt(info.getResumeWindow());
+        dest.writeLong(info.getResumePosition());
+        float volume = volumeInfo.getVolume();
+        dest.writeFloat(volumeInfo.isMute() ? -volume : volume);
+      } else {
+        if (others == null) others = new SparseArray<>();
+        others.put(states.keyAt(i), value);
+      }
+    }
+    dest.writeSparseArray(others);
+  }
+
+  static SparseArray<Object> readStates(Parcel in, ClassLoader loader) {
+    int packed = in.readInt();
+    SparseArray<Object> states = new SparseArray<>(packed);
+    for (int i = 0; i < packed; i++) {
+      int order = in.readInt();
+      int window = in.readInt();
+      long position = in.readLong();
+      float volume = in.readFloat();
+      boolean mute = (Float.floatToRawIntBits(volume) & SIGN_BIT) != 0;  // -0.0f < 0 is false.
+      states.put(order, new PlaybackInfo(window, position, new VolumeInfo(mute, Math.abs(volume))));
+    }
+
+    SparseArray<?> others = in.readSparseArray(loader);
+    if (others != null) {
+      for (int i = 0, size = others.size(); i < size; i++) {
+        states.put(others.keyAt(i), others.valueAt(i));
+      }
+    }
+    return states;
+  }
+}
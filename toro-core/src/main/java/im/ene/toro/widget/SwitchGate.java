@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import im.ene.toro.ToroPlayer;
+import java.util.ArrayList;
+
+/**
+ * @author eneim (2018/08/21).
+ *
+ * Gates the switch from the playing {@link ToroPlayer}s to the newly selected ones: the players
+ * those are not selected anymore (outgoing) keep playing until one of the selected players
+ * (incoming) reports it is playing, or until {@link #maxWait} passes. So the user doesn't see the
+ * old video stop before the new one has buffered.
+ *
+ * The time from the play request of an incoming player to its first playing report is the switch
+ * latency. A switch ended by the max wait is counted as a timeout.
+ */
+final class SwitchGate implements Runnable {
+
+  @NonNull private final Container container;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+
+  /* pkg */ long maxWait = 0;  // in milliseconds. 0 = disabled.
+
+  /* pkg */ int switchCount;
+  /* pkg */ int timeoutCount;
+  /* pkg */ long totalLatency;  // in milliseconds.
+  /* pkg */ long maxLatency;  // in milliseconds.
+
+  private final ArrayList<ToroPlayer> outgoing = new ArrayList<>();
+  private final ArrayList<ToroPlayer> incoming = new ArrayList<>();
+  private long startedAt;  // uptime of the first play request of the current switch.
+
+  SwitchGate(@NonNull Container container) {
+    this.container = container;
+  }
+
+  boolean isEnabled() {
+    return maxWait > 0;
+  }
+
+  // Called for each selected player. If it is not playing, the switch starts.
+  void onPlayerSelected(@NonNull ToroPlayer player) {
+    outgoing.remove(player);
+    if (!isEnabled() || player.isPlaying() || incoming.contains(player)) return;
+    if (incoming.isEmpty()) {
+      startedAt = SystemClock.uptimeMillis();
+      handler.removeCallbacks(this);
+      handler.postDelayed(this, maxWait);
+    }
+    incoming.add(player);
+  }
+
+  /**
+   * Called instead of pausing a player which is not selected anymore.
+   *
+   * @return {@code true} if the pause is deferred until the switch ends, {@code false} if the
+   * caller should pause the player now.
+   */
+  boolean deferPause(@NonNull ToroPlayer player) {
+    incoming.remove(player);
+    if (incoming.isEmpty()) return false;
+    if (!outgoing.contains(player)) outgoing.add(player);
+    return true;
+  }
+
+  // Called when a player reports it is playing.
+  void onPlayerPlaying(@NonNull ToroPlayer player) {
+    if (!incoming.remove(player)) return;
+    long latency = SystemClock.uptimeMillis() - startedAt;
+    switchCount++;
+    totalLatency += latency;
+    if (latency > maxLatency) maxLatency = latency;
+    finish();
+  }
+
+  // Called when a player is paused, released or detached outside of the gate.
+  void onPlayerReleased(@NonNull ToroPlayer player) {
+    outgoing.remove(player);
+    if (incoming.remove(player) && incoming.isEmpty()) finish();
+  }
+
+  // Max wait passed.
+  @Override public void run() {
+    if (incoming.isEmpty() && outgoing.isEmpty()) return;
+    timeoutCount++;
+    finish();
+  }
+
+  // Pause the outgoing players. The incoming ones are not waited anymore.
+  private void finish() {
+    handler.removeCallbacks(this);
+    incoming.clear();
+    for (int i = outgoing.size() - 1; i >= 0; i--) {
+      ToroPlayer player = outgoing.remove(i);
+      if (player.isPlaying()) container.pausePlayer(player);
+    }
+  }
+
+  void clear() {
+    handler.removeCallbacks(this);
+    incoming.clear();
+    outgoing.clear();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView.ItemAnimator;
+import android.view.Choreographer;
+
+import static android.support.v7.widget.RecyclerView.SCROLL_STATE_IDLE;
+
+/**
+ * @author eneim (2018/08/10).
+ *
+ * Coalesces the update requests of a {@link Container} (adapter changes, child layout changes,
+ * child attach/detach, ...) into at most one selection pass per frame. A request waits for the
+ * pending layout and the running item animations to finish, then the pass is executed once on
+ * the next frame, no matter how many requests were made in between.
+ *
+ * A requested layout re-arms the frame callback from
+ * {@link Container#onLayout(boolean, int, int, int, int)}, and the animations through
+ * {@link ItemAnimator.ItemAnimatorFinishedListener}. So a detached or gone Container, which is
+ * never laid out, costs nothing per frame. Only the pending adapter updates without a requested
+ * layout are checked again on each frame: a Container with fixed size consumes them on the next
+ * animation frame without any layout pass, so nothing else would re-arm the callback.
+ *
+ * This class is expected to be used from main thread only.
+ */
+final class UpdateDispatcher
+    implements Choreographer.FrameCallback, ItemAnimator.ItemAnimatorFinishedListener {
+
+  @NonNull private final Container container;
+  private Choreographer choreographer;  // null = not attached.
+
+  private boolean pending;  // a frame callback is posted, or we are waiting for the animations.
+  private boolean waitingAnimations;
+  private boolean waitingLayout;
+
+  /* pkg */ int coalescedCount;
+  /* pkg */ int executedCount;
+
+  UpdateDispatcher(@NonNull Container container) {
+    this.container = container;
+  }
+
+  void onAttach() {
+    choreographer = Choreographer.getInstance();
+  }
+
+  void onDetach() {
+    if (choreographer != null) {
+      choreographer.removeFrameCallback(this);
+      choreographer = null;
+    }
+    pending = false;
+    waitingAnimations = false;
+    waitingLayout = false;
+  }
+
+  /**
+   * Request a selection pass. Does nothing while the Container is scrolling, as the pass will
+   * happen once it becomes idle anyway.
+   */
+  void dispatchUpdate() {
+    if (choreographer == null || container.getScrollState() != SCROLL_STATE_IDLE) return;
+    if (pending) {
+      coalescedCount++;
+      return;
+    }
+    pending = true;
+    choreographer.postFrameCallback(this);
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    if (choreographer == null || !pending) return;
+    if (container.getScrollState() != SCROLL_STATE_IDLE) {
+      pending = false;  // The scroll ending will do the pass.
+      return;
+    }
+
+    // Wait for the layout of the changes, so the animations (if any) are scheduled.
+    if (container.isLayoutRequested()) {
+      waitingLayout = true;  // #onLayout posts the frame callback again.
+      return;
+    }
+
+    // With fixed size, the updates are applied without calling #onLayout, check on next frame.
+    if (container.hasPendingAdapterUpdates()) {
+      choreographer.postFrameCallback(this);
+      return;
+    }
+
+    ItemAnimator animator = container.getItemAnimator();
+    if (animator != null && animator.isRunning()) {
+      if (!waitingAnimations) {
+        waitingAnimations = true;
+        animator.isRunning(this);
+      }
+      return;
+    }
+
+    pending = false;
+    executedCount++;
+    container.onScrollStateChanged(SCROLL_STATE_IDLE);
+  }
+
+  // Called by Container#onLayout, after the layout of the pending changes.
+  void onLayout() {
+    if (!waitingLayout) return;
+    waitingLayout = false;
+    if (choreographer != null && pending) choreographer.postFrameCallback(this);
+  }
+
+  // Called once the running animations are finished.
+  @Override public void onAnimationsFinished() {
+    waitingAnimations = false;
+    if (choreographer != null && pending) choreographer.postFrameCallback(this);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.support.v4.util.ArrayMap;
+import android.support.v4.util.Pools;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import im.ene.toro.ToroPlayer;
+
+/**
+ * @author eneim (2018/08/06).
+ *
+ * Keeps a snapshot of the visible area of the {@link ToroPlayer}s inside a {@link Container}.
+ *
+ * The visible Rect of a playerView is computed relative to the Container: the playerView bounds
+ * are mapped to the Container's coordinates, clipped by the parents in between, then by the part
+ * of the Container that is visible in Window. The latter is the only Window-level walk, and is
+ * done once per snapshot. A snapshot lives until the next frame, scroll or layout, so all the
+ * queries of one selection pass, one {@link im.ene.toro.PlayerSelector} and the
+ * {@link ToroPlayer#wantsToPlay()} calls in between share the same geometry.
+ *
+ * Entries are recycled, so querying a snapshot allocates nothing once warmed up.
+ */
+final class VisibilityTracker implements ViewTreeObserver.OnPreDrawListener {
+
+  private static final int MAX_POOL_SIZE = 8;
+
+  @NonNull private final Container container;
+  private final ArrayMap<ToroPlayer, Entry> entries = new ArrayMap<>();
+  private final Pools.SimplePool<Entry> entryPool = new Pools.SimplePool<>(MAX_POOL_SIZE);
+
+  private final Rect containerRect = new Rect();  // visible part of the Container, in its coords.
+  private boolean containerVisible;
+  private int containerGeneration = -1;
+
+  private int generation = 0;  // increased by every invalidation.
+  private ViewTreeObserver observer;  // null = not attached.
+
+  VisibilityTracker(@NonNull Container container) {
+    this.container = container;
+  }
+
+  void onAttach() {
+    observer = container.getViewTreeObserver();
+    observer.addOnPreDrawListener(this);
+    invalidate();
+  }
+
+  void onDetach() {
+    if (observer != null) {
+      if (observer.isAlive()) {
+        observer.removeOnPreDrawListener(this);
+      } else {
+        container.getViewTreeObserver().removeOnPreDrawListener(this);
+      }
+      observer = null;
+    }
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      entryPool.release(entries.valueAt(i));
+    }
+    entries.clear();
+    invalidate();
+  }
+
+  // Called before every frame is drawn. Things out of Container may have moved it on screen.
+  @Override public boolean onPreDraw() {
+    invalidate();
+    return true;
+  }
+
+  /**
+   * Drop the current snapshot. It is cheap: the entries are re-computed lazily on next query.
+   */
+  void invalidate() {
+    generation++;
+  }
+
+  void onPlayerDetached(@NonNull ToroPlayer player) {
+    Entry entry = entries.remove(player);
+    if (entry != null) entryPool.release(entry);
+  }
+
+  /**
+   * @return {@code true} if the playerView of this player is visible in the Container.
+   */
+  boolean isVisible(@NonNull ToroPlayer player) {
+    return obtain(player).visible;
+  }
+
+  /**
+   * @return ratio of the visible area of the playerView, in range of 0.0 ~ 1.0.
+   */
+  float visibleAreaOffset(@NonNull ToroPlayer player) {
+    return obtain(player).offset;
+  }
+
+  private Entry obtain(ToroPlayer player) {
+    Entry entry = entries.get(player);
+    if (entry == null) {
+      entry = entryPool.acquire();
+      if (entry == null) entry = new Entry();
+      entry.generation = generation - 1;
+      entries.put(player, entry);
+    }
+
+    if (entry.generation != generation) {
+      compute(player, entry);
+      entry.generation = generation;
+    }
+    return entry;
+  }
+
+  private void compute(ToroPlayer player, Entry entry) {
+    Rect rect = entry.rect;
+    rect.setEmpty();
+    entry.visible = false;
+    entry.offset = 0.f;
+
+    //noinspection ConstantConditions
+    if (!(player instanceof RecyclerView.ViewHolder)) return;  // Should not happen.
+    if (((RecyclerView.ViewHolder) player).itemView.getParent() != container) return;
+
+    View view = player.getPlayerView();
+    int drawArea = view.getWidth() * view.getHeight();
+    if (drawArea <= 0) return;
+
+    if (containerGeneration != generation) {
+      containerVisible = container.getLocalVisibleRect(containerRect);
+      containerGeneration = generation;
+    }
+    if (!containerVisible) return;
+
+    rect.set(0, 0, view.getWidth(), view.getHeight());
+    while (view != container) {
+      ViewParent parent = view.getParent();
+      if (!(parent instanceof View)) {  // Detached in between.
+        rect.setEmpty();
+        return;
+      }
+      View parentView = (View) parent;
+      rect.offset(view.getLeft() + (int) view.getTranslationX() - parentView.getScrollX(),
+          view.getTop() + (int) view.getTranslationY() - parentView.getScrollY());
+      if (!rect.intersect(0, 0, parentView.getWidth(), parentView.getHeight())) {
+        rect.setEmpty();
+        return;
+      }
+      view = parentView;
+    }
+
+    if (!rect.intersect(containerRect)) {
+      rect.setEmpty();
+      return;
+    }
+
+    entry.visible = true;
+    entry.offset = Math.min(1.f, rect.width() * rect.height() / (float) drawArea);
+  }
+
+  static final class Entry {
+
+    final Rect rect = new Rect();
+    boolean visible;
+    float offset;
+    int generation;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * @author eneim (2018/08/25).
+ *
+ * Counts the bytes allocated by the current thread, using the HotSpot extension of
+ * {@link ThreadMXBean}. Tests those use it should be skipped where it is not supported.
+ */
+public final class AllocationCounter {
+
+  private AllocationCounter() {
+    throw new RuntimeException("Meh!");
+  }
+
+  public static boolean isSupported() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) return false;
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    if (!threads.isThreadAllocatedMemorySupported()) return false;
+    threads.setThreadAllocatedMemoryEnabled(true);
+    return true;
+  }
+
+  /**
+   * @return bytes allocated by the current thread so far. Only valid if {@link #isSupported()}.
+   */
+  public static long allocatedBytes() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
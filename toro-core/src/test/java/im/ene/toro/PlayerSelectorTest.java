@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro;
+
+import im.ene.toro.widget.Container;
+import java.util.ArrayList;
+import java.util.Collection;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author eneim (2018/08/25).
+ */
+public class PlayerSelectorTest {
+
+  private static final int PLAYER_COUNT = 10;
+  private static final int RUNS = 10_000;
+
+  private final ArrayList<ToroPlayer> candidates = new ArrayList<>();
+  private final ToroPlayer[] players = new ToroPlayer[PLAYER_COUNT];
+  private Container container;
+
+  @Before public void setUp() {
+    container = mock(Container.class);
+    for (int i = 0; i < PLAYER_COUNT; i++) {
+      players[i] = mock(ToroPlayer.class);
+      when(players[i].getPlayerOrder()).thenReturn(i);
+    }
+  }
+
+  @Test public void default_selectsFirstCandidate() {
+    fillCandidates();
+    Collection<ToroPlayer> selected = PlayerSelector.DEFAULT.select(container, candidates);
+    assertEquals(1, selected.size());
+    assertSame(players[0], selected.iterator().next());
+  }
+
+  @Test public void defaultReverse_selectsLastCandidate() {
+    fillCandidates();
+    Collection<ToroPlayer> selected = PlayerSelector.DEFAULT_REVERSE.select(container, candidates);
+    assertEquals(1, selected.size());
+    assertSame(players[PLAYER_COUNT - 1], selected.iterator().next());
+  }
+
+  // Documented contract: the built-in selectors modify the candidates, and return them.
+  @Test public void builtInSelectors_returnTheCandidateList() {
+    PlayerSelector[] selectors = {
+        PlayerSelector.DEFAULT, PlayerSelector.DEFAULT_REVERSE, PlayerSelector.BY_AREA
+    };
+    for (PlayerSelector selector : selectors) {
+      candidates.clear();
+      candidates.add(players[3]);  // Single candidate, BY_AREA doesn't read the Container.
+      Collection<ToroPlayer> selected = selector.select(container, candidates);
+      assertSame(candidates, selected);
+      assertEquals(1, candidates.size());
+      assertSame(players[3], candidates.get(0));
+    }
+
+    fillCandidates();
+    assertSame(candidates, PlayerSelector.DEFAULT.select(container, candidates));
+    assertEquals(1, candidates.size());
+    assertSame(players[0], candidates.get(0));
+    verifyZeroInteractions(container);
+  }
+
+  @Test public void none_selectsNothingAndKeepsCandidates() {
+    fillCandidates();
+    Collection<ToroPlayer> selected = PlayerSelector.NONE.select(container, candidates);
+    assertTrue(selected.isEmpty());
+    assertEquals(PLAYER_COUNT, candidates.size());
+  }
+
+  @Test public void default_allocatesNothing() {
+    assertNoAllocation(PlayerSelector.DEFAULT);
+  }
+
+  @Test public void defaultReverse_allocatesNothing() {
+    assertNoAllocation(PlayerSelector.DEFAULT_REVERSE);
+  }
+
+  private void assertNoAllocation(PlayerSelector selector) {
+    assumeTrue(AllocationCounter.isSupported());
+    select(selector, RUNS);  // Warm up, the candidate list reaches its final capacity.
+    long before = AllocationCounter.allocatedBytes();
+    select(selector, RUNS);
+    long allocated = AllocationCounter.allocatedBytes() - before;
+    // Any allocation per selection would cost at least 16 bytes each time.
+    assertTrue("Allocated " + allocated + " bytes in " + RUNS + " selections", allocated < RUNS);
+  }
+
+  private void select(PlayerSelector selector, int runs) {
+    for (int i = 0; i < runs; i++) {
+      fillCandidates();
+      selector.select(container, candidates);
+    }
+  }
+
+  private void fillCandidates() {
+    candidates.clear();
+    for (ToroPlayer player : players) {
+      candidates.add(player);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.app.Activity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.view.View;
+import android.view.ViewGroup;
+import im.ene.toro.PlayerSelector;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import static android.support.v7.widget.RecyclerView.SCROLL_STATE_IDLE;
+import static android.view.View.MeasureSpec.EXACTLY;
+import static android.view.View.MeasureSpec.makeMeasureSpec;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author eneim (2018/08/26).
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ContainerTest {
+
+  static final int WIDTH = 1080;
+  static final int HEIGHT = 1920;
+
+  private Container container;
+
+  @Before public void setUp() {
+    Activity activity = Robolectric.setupActivity(Activity.class);
+    container = new Container(activity);
+    container.setLayoutManager(new LinearLayoutManager(activity));
+    container.setAdapter(new FakePlayerAdapter(100, HEIGHT / 4));
+    activity.setContentView(container, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+    layout(activity.getWindow().getDecorView());
+  }
+
+  static void layout(View view) {
+    layout(view, WIDTH, HEIGHT);
+  }
+
+  static void layout(View view, int width, int height) {
+    view.measure(makeMeasureSpec(width, EXACTLY), makeMeasureSpec(height, EXACTLY));
+    view.layout(0, 0, width, height);
+  }
+
+  // Enough frames for the item animations to finish.
+  static void runFrames() {
+    for (int i = 0; i < 60; i++) ShadowLooper.idleMainLooper(16, MILLISECONDS);
+  }
+
+  @Test public void idle_dispatchesPlaybackWindowOfDefaultSelector() {
+    Container.PlaybackWindowListener listener = mock(Container.PlaybackWindowListener.class);
+    container.setPlayerSelector(PlayerSelector.DEFAULT);
+    container.setPlaybackWindowListener(listener);
+
+    container.onScrollStateChanged(SCROLL_STATE_IDLE);
+    // The first player is selected, and nothing is scrolled yet.
+    verify(listener, atLeastOnce()).onPlaybackWindowChanged(container, 0, 1);
+  }
+
+  @Test public void fixedSize_adapterUpdates_doNotBlockLaterUpdates() {
+    container.setHasFixedSize(true);
+    runFrames();
+
+    // With fixed size, the change is applied on the next animation frame, without a layout.
+    int executed = container.getExecutedUpdateCount();
+    container.getAdapter().notifyItemRangeChanged(0, 4);
+    container.dispatchUpdateOnAnimationFinished();
+    runFrames();
+    assertTrue("Update is not executed", container.getExecutedUpdateCount() > executed);
+
+    // The next request is executed too, rather than merged into a request that never ends.
+    executed = container.getExecutedUpdateCount();
+    container.dispatchUpdateOnAnimationFinished();
+    runFrames();
+    assertTrue("Update is stuck", container.getExecutedUpdateCount() > executed);
+  }
+}
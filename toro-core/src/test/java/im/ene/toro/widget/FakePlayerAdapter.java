@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+
+import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
+
+/**
+ * An Adapter of same height items, whose ViewHolders are {@link ToroPlayer}s those only count the
+ * calls they receive.
+ *
+ * @author eneim (2018/08/26).
+ */
+final class FakePlayerAdapter extends RecyclerView.Adapter<FakePlayerAdapter.Holder> {
+
+  private final int itemHeight;
+  private int itemCount;
+
+  // Number of calls to all the players.
+  int initializeCount;
+  int playCount;
+  int pauseCount;
+  int releaseCount;
+
+  FakePlayerAdapter(int itemCount, int itemHeight) {
+    this.itemCount = itemCount;
+    this.itemHeight = itemHeight;
+  }
+
+  @Override public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+    View view = new View(parent.getContext());
+    view.setLayoutParams(new ViewGroup.LayoutParams(MATCH_PARENT, itemHeight));
+    return new Holder(view);
+  }
+
+  @Override public void onBindViewHolder(Holder holder, int position) {
+    // Nothing to bind.
+  }
+
+  @Override public int getItemCount() {
+    return itemCount;
+  }
+
+  void insertItems(int positionStart, int count) {
+    itemCount += count;
+    notifyItemRangeInserted(positionStart, count);
+  }
+
+  void removeItems(int positionStart, int count) {
+    itemCount -= count;
+    notifyItemRangeRemoved(positionStart, count);
+  }
+
+  final class Holder extends RecyclerView.ViewHolder implements ToroPlayer {
+
+    private boolean playing;
+
+    Holder(View itemView) {
+      super(itemView);
+    }
+
+    @NonNull @Override public View getPlayerView() {
+      return itemView;
+    }
+
+    @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
+      return new PlaybackInfo();
+    }
+
+    @Override public void initialize(@NonNull Container container,
+        @NonNull PlaybackInfo playbackInfo) {
+      initializeCount++;
+    }
+
+    @Override public void play() {
+      playCount++;
+      playing = true;
+    }
+
+    @Override public void pause() {
+      pauseCount++;
+      playing = false;
+    }
+
+    @Override public boolean isPlaying() {
+      return playing;
+    }
+
+    @Override public void release() {
+      releaseCount++;
+      playing = false;
+    }
+
+    @Override public boolean wantsToPlay() {
+      ViewParent parent = itemView.getParent();
+      return parent instanceof Container
+          && ((Container) parent).getVisibleAreaOffset(this) >= 0.65f;
+    }
+
+    @Override public int getPlayerOrder() {
+      return getAdapterPosition();
+    }
+  }
+}
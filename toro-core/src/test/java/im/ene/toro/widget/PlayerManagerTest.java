@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+import im.ene.toro.AllocationCounter;
+import im.ene.toro.PlayerDispatcher;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * @author eneim (2018/08/25).
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PlayerManagerTest {
+
+  private static final int RUNS = 10_000;
+
+  private PlayerManager manager;
+
+  @Before public void setUp() {
+    manager = new PlayerManager(new MetricsRecorder(mock(Container.class)));
+  }
+
+  @Test public void attachPlayer_keepsPlayersSortedByOrder() {
+    OrderedPlayer second = new OrderedPlayer(5);
+    OrderedPlayer first = new OrderedPlayer(1);
+    OrderedPlayer third = new OrderedPlayer(9);
+    assertTrue(manager.attachPlayer(second));
+    assertTrue(manager.attachPlayer(first));
+    assertTrue(manager.attachPlayer(third));
+    assertFalse(manager.attachPlayer(first));
+
+    List<ToroPlayer> players = manager.getSortedPlayers();
+    assertEquals(3, players.size());
+    assertSame(first, players.get(0));
+    assertSame(second, players.get(1));
+    assertSame(third, players.get(2));
+  }
+
+  @Test public void getSortedPlayers_followsOrderChanges() {
+    OrderedPlayer first = new OrderedPlayer(0);
+    OrderedPlayer second = new OrderedPlayer(1);
+    manager.attachPlayer(first);
+    manager.attachPlayer(second);
+
+    first.order = 2;  // Adapter moved the item.
+    List<ToroPlayer> players = manager.getSortedPlayers();
+    assertSame(second, players.get(0));
+    assertSame(first, players.get(1));
+  }
+
+  @Test public void getSortedPlayers_allocatesNothing() {
+    assumeTrue(AllocationCounter.isSupported());
+    OrderedPlayer[] players = new OrderedPlayer[10];
+    for (int i = 0; i < players.length; i++) {
+      players[i] = new OrderedPlayer(i);
+      manager.attachPlayer(players[i]);
+    }
+
+    sortRepeatedly(players, RUNS);  // Warm up.
+    long before = AllocationCounter.allocatedBytes();
+    sortRepeatedly(players, RUNS);
+    long allocated = AllocationCounter.allocatedBytes() - before;
+    assertTrue("Allocated " + allocated + " bytes in " + RUNS + " passes", allocated < RUNS);
+  }
+
+  @Test public void release_keepsOtherPlayersMaxWait() {
+    manager.onAttach();
+    ToroPlayer waiting = mock(ToroPlayer.class,
+        withSettings().extraInterfaces(ToroPlayer.ReadinessAware.class));
+    ToroPlayer released = mock(ToroPlayer.class);
+    manager.attachPlayer(waiting);
+    manager.attachPlayer(released);
+
+    PlayerDispatcher.Conditional dispatcher = mock(PlayerDispatcher.Conditional.class);
+    when(dispatcher.getDelayToPlay(any(ToroPlayer.class))).thenReturn(500);
+    when(dispatcher.isReadyToPlay(any(ToroPlayer.ReadinessAware.class))).thenReturn(false);
+    manager.play(waiting, dispatcher);
+    assertTrue(manager.isWaitingToPlay(waiting));
+
+    manager.release(released);
+    ShadowLooper.idleMainLooper(499);
+    verify(waiting, never()).play();
+    ShadowLooper.idleMainLooper(1);  // Max wait passed, plays even if not ready.
+    verify(waiting).play();
+    assertFalse(manager.isWaitingToPlay(waiting));
+    verify(released).release();
+  }
+
+  @Test public void unpark_sameOrderOtherKey_releasesPlayer() {
+    ToroPlayer player = parkedPlayer(3, "a");
+    manager.unpark(player, "b");  // Another item now has the same order.
+    verify(player).release();
+    assertFalse(manager.isParked(player));
+  }
+
+  @Test public void unpark_afterInsertion_keepsPlayerOfShiftedItem() {
+    ToroPlayer player = parkedPlayer(3, null);
+    manager.onItemRangeInserted(0, 2);
+    when(player.getPlayerOrder()).thenReturn(5);
+    manager.unpark(player, null);
+    verify(player, never()).release();
+  }
+
+  @Test public void unpark_afterRemoval_releasesPlayerOfRemovedItem() {
+    ToroPlayer player = parkedPlayer(3, null);
+    manager.onItemRangeRemoved(2, 2);
+    manager.unpark(player, null);  // The next item took the order.
+    verify(player).release();
+  }
+
+  private ToroPlayer parkedPlayer(int order, Object key) {
+    manager.onAttach();
+    manager.setKeepWarm(2, 60_000);
+    ToroPlayer player = mock(ToroPlayer.class);
+    when(player.getPlayerOrder()).thenReturn(order);
+    assertTrue(manager.park(player, key));
+    return player;
+  }
+
+  // Swap the orders of 2 players each time, so that the list always needs to be sorted again.
+  private void sortRepeatedly(OrderedPlayer[] players, int runs) {
+    OrderedPlayer a = players[2];
+    OrderedPlayer b = players[7];
+    for (int i = 0; i < runs; i++) {
+      int order = a.order;
+      a.order = b.order;
+      b.order = order;
+      manager.getSortedPlayers();
+    }
+  }
+
+  // A ToroPlayer that only has an order, and no mock overhead.
+  static final class OrderedPlayer implements ToroPlayer {
+
+    int order;
+
+    OrderedPlayer(int order) {
+      this.order = order;
+    }
+
+    @NonNull @Override public View getPlayerView() {
+      throw new UnsupportedOperationException();
+    }
+
+    @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
+      return new PlaybackInfo();
+    }
+
+    @Override public void initialize(@NonNull Container container,
+        @NonNull PlaybackInfo playbackInfo) {
+    }
+
+    @Override public void play() {
+    }
+
+    @Override public void pause() {
+    }
+
+    @Override public boolean isPlaying() {
+      return false;
+    }
+
+    @Override public void release() {
+    }
+
+    @Override public boolean wantsToPlay() {
+      return true;
+    }
+
+    @Override public int getPlayerOrder() {
+      return order;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.Parcel;
+import android.util.SparseArray;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.VolumeInfo;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author eneim (2018/08/27).
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SavedStatesTest {
+
+  @Test public void writeStates_readStates_keepVolumesExactly() {
+    SparseArray<PlaybackInfo> states = new SparseArray<>();
+    states.put(0, new PlaybackInfo(1, 1000L, new VolumeInfo(false, 0.3f)));
+    states.put(1, new PlaybackInfo(2, 2000L, new VolumeInfo(true, 0.3f)));
+    states.put(5, new PlaybackInfo(0, 0L, new VolumeInfo(true, 0f)));
+    states.put(9, new PlaybackInfo(3, Long.MAX_VALUE, new VolumeInfo(false, 0f)));
+    states.put(12, new PlaybackInfo(4, 42L, new VolumeInfo(true, 1f)));
+
+    SparseArray<Object> restored = roundTrip(states);
+    assertEquals(states.size(), restored.size());
+    for (int i = 0; i < states.size(); i++) {
+      PlaybackInfo expected = states.valueAt(i);
+      PlaybackInfo actual = (PlaybackInfo) restored.get(states.keyAt(i));
+      assertEquals(expected.getResumeWindow(), actual.getResumeWindow());
+      assertEquals(expected.getResumePosition(), actual.getResumePosition());
+      assertEquals(expected.getVolumeInfo().isMute(), actual.getVolumeInfo().isMute());
+      // Exact bits, not a delta: the encoding must not round the volume.
+      assertEquals(Float.floatToRawIntBits(expected.getVolumeInfo().getVolume()),
+          Float.floatToRawIntBits(actual.getVolumeInfo().getVolume()));
+    }
+  }
+
+  private static SparseArray<Object> roundTrip(SparseArray<?> states) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      SavedStates.writeStates(parcel, states);
+      parcel.setDataPosition(0);
+      return SavedStates.readStates(parcel, SavedStatesTest.class.getClassLoader());
+    } finally {
+      parcel.recycle();
+    }
+  }
+}
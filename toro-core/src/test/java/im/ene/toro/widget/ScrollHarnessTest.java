@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.view.ViewGroup;
+import im.ene.toro.AllocationCounter;
+import im.ene.toro.ToroPlayer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import static android.support.v7.widget.RecyclerView.SCROLL_STATE_IDLE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run a {@link Container} of fake players through the usual workloads: drag scrolls, flings,
+ * storms of Adapter range changes and configuration changes. For each scenario, print the cost
+ * of the dispatch passes ({@link Container#onScrollStateChanged(int)}, whoever calls it): main
+ * thread time, calls to the players and allocations. The allocations include the RecyclerView's
+ * own scroll and layout work.
+ *
+ * This is a harness to compare the changes of the dispatch code, so it only checks that the
+ * scenarios run and keep at most one player playing, not how fast they are.
+ *
+ * @author eneim (2018/08/26).
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ScrollHarnessTest {
+
+  private static final int ITEM_COUNT = 10_000;
+  private static final int ITEM_HEIGHT = ContainerTest.HEIGHT / 4;
+  private static final int FRAME_MILLIS = 16;
+
+  private final DispatchTimes times = new DispatchTimes();
+  private Activity activity;
+  private Container container;
+  private FakePlayerAdapter adapter;
+
+  @Before public void setUp() {
+    activity = Robolectric.setupActivity(Activity.class);
+    adapter = new FakePlayerAdapter(ITEM_COUNT, ITEM_HEIGHT);
+    container = attachContainer(ContainerTest.WIDTH, ContainerTest.HEIGHT);
+  }
+
+  @Test public void dragScroll_reportsDispatchCost() {
+    run("Drag scroll", 20, 200, new Scenario() {
+      // Drag a few steps, one per frame, then lift the finger.
+      @Override void runOnce() {
+        for (int i = 0; i < 5; i++) {
+          container.scrollBy(0, ITEM_HEIGHT / 3);
+          runFrames(1);
+        }
+        container.onScrollStateChanged(SCROLL_STATE_IDLE);
+      }
+    });
+  }
+
+  @Test public void fling_reportsDispatchCost() {
+    run("Fling", 5, 20, new Scenario() {
+      int direction = 1;
+
+      // Fling until the Container settles, back and forth so it stays inside the list.
+      @Override void runOnce() {
+        container.fling(0, direction * 8000);
+        for (int i = 0; i < 600 && container.getScrollState() != SCROLL_STATE_IDLE; i++) {
+          runFrames(1);
+        }
+        direction = -direction;
+      }
+    });
+  }
+
+  @Test public void itemRangeStorm_reportsDispatchCost() {
+    run("Item range storm", 10, 100, new Scenario() {
+      // A burst of changes around the laid out items in one frame, then let the updates settle.
+      @Override void runOnce() {
+        int first = ((LinearLayoutManager) container.getLayoutManager())
+            .findFirstVisibleItemPosition();
+        for (int i = 0; i < 10; i++) {
+          adapter.notifyItemRangeChanged(first + i % 4, 2);
+          adapter.insertItems(first + i % 3, 1);
+          adapter.removeItems(first + i % 5, 1);
+        }
+        runFrames(30);
+      }
+    });
+  }
+
+  @Test public void configurationChange_reportsDispatchCost() {
+    run("Config change", 2, 20, new Scenario() {
+      boolean landscape;
+
+      // Recreate the Container from its saved state, in the other orientation. The Adapter is
+      // kept, like a retained one, so its calls are counted all along.
+      @Override void runOnce() {
+        Parcelable state = roundTrip(container.onSaveInstanceState());
+        landscape = !landscape;
+        container = landscape ? attachContainer(ContainerTest.HEIGHT, ContainerTest.WIDTH)
+            : attachContainer(ContainerTest.WIDTH, ContainerTest.HEIGHT);
+        container.onRestoreInstanceState(state);
+        runFrames(30);
+        container.onScrollStateChanged(SCROLL_STATE_IDLE);
+      }
+    });
+  }
+
+  private void run(String name, int warmUps, int runs, Scenario scenario) {
+    for (int i = 0; i < warmUps; i++) scenario.runOnce();
+    times.reset();
+    int initialized = adapter.initializeCount;
+    int played = adapter.playCount;
+    int paused = adapter.pauseCount;
+    int released = adapter.releaseCount;
+    Container measured = container;
+    int coalesced = measured.getCoalescedUpdateCount();
+
+    boolean countAllocations = AllocationCounter.isSupported();
+    long before = countAllocations ? AllocationCounter.allocatedBytes() : 0;
+    for (int i = 0; i < runs; i++) scenario.runOnce();
+    long allocated = countAllocations ? AllocationCounter.allocatedBytes() - before : -1;
+
+    int passes = times.passes;
+    System.out.printf("%s, %d runs on %d items%n", name, runs, adapter.getItemCount());
+    System.out.printf("  Dispatch passes: %d, average: %d ns, max: %d ns%n", passes,
+        passes > 0 ? times.totalNanos / passes : 0, times.maxNanos);
+    // Only meaningful if the Container is not replaced by the scenario.
+    if (container == measured) {
+      int merged = measured.getCoalescedUpdateCount() - coalesced;
+      System.out.printf("  Coalesced updates: %d%n", merged);
+    }
+    System.out.printf("  Player calls: initialize %d, play %d, pause %d, release %d%n",
+        adapter.initializeCount - initialized, adapter.playCount - played,
+        adapter.pauseCount - paused, adapter.releaseCount - released);
+    System.out.printf("  Allocated: %d bytes, %d bytes per run%n", allocated,
+        allocated >= 0 ? allocated / runs : -1);
+
+    assertTrue(name + ": no dispatch pass", passes > 0);
+    // The default selector plays one player at most.
+    int playing = 0;
+    for (int i = 0, count = container.getChildCount(); i < count; i++) {
+      Object holder = container.getChildViewHolder(container.getChildAt(i));
+      if (holder instanceof ToroPlayer && ((ToroPlayer) holder).isPlaying()) playing++;
+    }
+    assertTrue(name + ": playing " + playing, playing <= 1);
+  }
+
+  private Container attachContainer(int width, int height) {
+    Container result = new TimedContainer(activity, times);
+    result.setLayoutManager(new LinearLayoutManager(activity));
+    result.setAdapter(adapter);
+    activity.setContentView(result, new ViewGroup.LayoutParams(width, height));
+    ContainerTest.layout(activity.getWindow().getDecorView(), width, height);
+    return result;
+  }
+
+  // The saved state goes through a Parcel on a real configuration change.
+  private static Parcelable roundTrip(Parcelable state) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.writeParcelable(state, 0);
+      parcel.setDataPosition(0);
+      return parcel.readParcelable(Container.class.getClassLoader());
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  private static void runFrames(int frames) {
+    for (int i = 0; i < frames; i++) ShadowLooper.idleMainLooper(FRAME_MILLIS, MILLISECONDS);
+  }
+
+  private abstract static class Scenario {
+
+    abstract void runOnce();
+  }
+
+  // Shared by the Containers of a test, as a configuration change replaces the Container.
+  static final class DispatchTimes {
+
+    int passes;
+    long totalNanos;
+    long maxNanos;
+
+    void add(long time) {
+      passes++;
+      totalNanos += time;
+      if (time > maxNanos) maxNanos = time;
+    }
+
+    void reset() {
+      passes = 0;
+      totalNanos = 0;
+      maxNanos = 0;
+    }
+  }
+
+  // Times the dispatch passes, be they called by the test, the RecyclerView or the updates.
+  static final class TimedContainer extends Container {
+
+    private final DispatchTimes times;
+
+    TimedContainer(Context context, DispatchTimes times) {
+      super(context);
+      this.times = times;
+    }
+
+    @Override public void onScrollStateChanged(int state) {
+      long start = System.nanoTime();
+      super.onScrollStateChanged(state);
+      times.add(System.nanoTime() - start);
+    }
+  }
+}
@@ -21,9 +21,11 @@ import com.google.android.exoplayer2.upstream.BandwidthMeter;
 import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer2.upstream.TransferListener;
+import im.ene.toro.PlayerDispatcher;
 
 /**
- * Abstract the {@link DefaultBandwidthMeter}, provide a wider use.
+ * Abstract the {@link DefaultBandwidthMeter}, provide a wider use. It can also feed a
+ * {@link PlayerDispatcher.NetworkAware}.
  *
  * @author eneim (2018/01/26).
  * @since 3.4.0
@@ -31,7 +33,7 @@ import com.google.android.exoplayer2.upstream.TransferListener;
 
 @SuppressWarnings("WeakerAccess") //
 public final class BaseMeter<T extends BandwidthMeter, S extends TransferListener<Object>>
-    implements BandwidthMeter, TransferListener {
+    implements BandwidthMeter, TransferListener, PlayerDispatcher.NetworkAware.BandwidthEstimator {
 
   @NonNull protected final T bandwidthMeter;
   @NonNull protected final S transferListener;
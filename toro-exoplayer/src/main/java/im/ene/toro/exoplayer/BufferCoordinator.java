@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import com.google.android.exoplayer2.upstream.Allocator;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+
+/**
+ * Shares one {@link Allocator} and one buffer budget (in bytes) across all the players created
+ * by the {@link ExoCreator}s of a {@link ToroExo}.
+ *
+ * Each player gets its own {@link Control}, which keeps the time based decisions of the
+ * {@link LoadControl} from {@link Config}, but allocates from the shared allocator and stops
+ * loading once the budget is used. A player which doesn't play (a prepared or pre-warmed one) may
+ * only fill {@link #IDLE_SHARE} of the budget, so that the playing one always has room. A playing
+ * player which has not buffered enough to start yet keeps loading even above the budget.
+ *
+ * {@link LoadControl}s are called on the playback threads of the players, so this class is
+ * thread-safe.
+ *
+ * @author eneim (2018/08/20).
+ */
+final class BufferCoordinator {
+
+  // Part of the budget the players those are not playing can use.
+  static final float IDLE_SHARE = 0.5f;
+
+  private final DefaultAllocator allocator =
+      new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
+  private volatile int budgetBytes;  // 0 = disabled.
+
+  boolean isEnabled() {
+    return budgetBytes > 0;
+  }
+
+  void setBudget(int budgetBytes) {
+    this.budgetBytes = budgetBytes;
+    // Available (not in use) allocations are kept up to the budget, for reuse.
+    allocator.setTargetBufferSize(budgetBytes);
+  }
+
+  int getBudget() {
+    return budgetBytes;
+  }
+
+  int getAllocatedBytes() {
+    return allocator.getTotalBytesAllocated();
+  }
+
+  // Release the available allocations, the ones in use are released by their players.
+  void trim() {
+    allocator.setTargetBufferSize(0);
+    allocator.setTargetBufferSize(budgetBytes);
+  }
+
+  @NonNull LoadControl newLoadControl(@NonNull LoadControl policy) {
+    return new Control(policy);
+  }
+
+  final class Control implements LoadControl {
+
+    @NonNull private final LoadControl policy;
+    private volatile boolean playing;
+
+    Control(@NonNull LoadControl policy) {
+      this.policy = policy;
+    }
+
+    // Called from main thread by ToroExoPlayer.
+    void setPlaying(boolean playing) {
+      this.playing = playing;
+    }
+
+    @Override public void onPrepared() {
+      policy.onPrepared();
+    }
+
+    @Override public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups,
+        TrackSelectionArray trackSelections) {
+      policy.onTracksSelected(renderers, trackGroups, trackSelections);
+    }
+
+    @Override public void onStopped() {
+      policy.onStopped();
+      allocator.trim();
+    }
+
+    @Override public void onReleased() {
+      playing = false;
+      policy.onReleased();
+      allocator.trim();
+    }
+
+    @Override public Allocator getAllocator() {
+      return allocator;
+    }
+
+    @Override public long getBackBufferDurationUs() {
+      return policy.getBackBufferDurationUs();
+    }
+
+    @Override public boolean retainBackBufferFromKeyframe() {
+      return policy.retainBackBufferFromKeyframe();
+    }
+
+    @Override public boolean shouldContinueLoading(long bufferedDurationUs, float playbackSpeed) {
+      if (!policy.shouldContinueLoading(bufferedDurationUs, playbackSpeed)) return false;
+      int budget = budgetBytes;
+      if (budget <= 0) return true;
+      int allocated = allocator.getTotalBytesAllocated();
+      if (!playing) return allocated < budget * IDLE_SHARE;
+      return allocated < budget || !policy.shouldStartPlayback(bufferedDurationUs, playbackSpeed,
+          true);
+    }
+
+    @Override public boolean shouldStartPlayback(long bufferedDurationUs, float playbackSpeed,
+        boolean rebuffering) {
+      return policy.shouldStartPlayback(bufferedDurationUs, playbackSpeed, rebuffering);
+    }
+  }
+}
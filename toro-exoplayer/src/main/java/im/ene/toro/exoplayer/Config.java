@@ -46,6 +46,7 @@ public final class Config {
 
   // primitive flags
   @ExtensionRendererMode final int extensionMode;
+  final long mediaCacheSize;  // size of the built-in media cache. 0 = not used.
 
   // NonNull options
   @NonNull final BaseMeter meter;
@@ -62,8 +63,10 @@ public final class Config {
 
   Config(int extensionMode, @NonNull BaseMeter meter, @NonNull LoadControl loadControl,
       @Nullable DataSource.Factory dataSourceFactory, @NonNull MediaSourceBuilder mediaSourceBuilder,
-      @Nullable DrmSessionManager[] drmSessionManagers, @Nullable Cache cache) {
+      @Nullable DrmSessionManager[] drmSessionManagers, @Nullable Cache cache,
+      long mediaCacheSize) {
     this.extensionMode = extensionMode;
+    this.mediaCacheSize = mediaCacheSize;
     this.meter = meter;
     this.loadControl = loadControl;
     this.dataSourceFactory = dataSourceFactory;
@@ -79,6 +82,7 @@ public final class Config {
     Config config = (Config) o;
 
     if (extensionMode != config.extensionMode) return false;
+    if (mediaCacheSize != config.mediaCacheSize) return false;
     if (!meter.equals(config.meter)) return false;
     if (!loadControl.equals(config.loadControl)) return false;
     if (!mediaSourceBuilder.equals(config.mediaSourceBuilder)) return false;
@@ -91,6 +95,7 @@ public final class Config {
 
   @Override public int hashCode() {
     int result = extensionMode;
+    result = 31 * result + (int) (mediaCacheSize ^ (mediaCacheSize >>> 32));
     result = 31 * result + meter.hashCode();
     result = 31 * result + loadControl.hashCode();
     result = 31 * result + mediaSourceBuilder.hashCode();
@@ -102,6 +107,7 @@ public final class Config {
 
   @SuppressWarnings("unused") public Builder newBuilder() {
     return new Builder().setCache(this.cache)
+        .setMediaCacheSize(this.mediaCacheSize)
         .setDrmSessionManagers(this.drmSessionManagers)
         .setExtensionMode(this.extensionMode)
         .setLoadControl(this.loadControl)
@@ -121,6 +127,7 @@ public final class Config {
     private MediaSourceBuilder mediaSourceBuilder = MediaSourceBuilder.DEFAULT;
     private DrmSessionManager[] drmSessionManagers = null;
     private Cache cache = null;
+    private long mediaCacheSize = 0;
 
     public Builder setExtensionMode(@ExtensionRendererMode int extensionMode) {
       this.extensionMode = extensionMode;
@@ -160,9 +167,22 @@ public final class Config {
       return this;
     }
 
+    /**
+     * Use the built-in media cache of {@link ToroExo} (see {@link ToroExo#getMediaCache(long)}),
+     * so that a video played again is read from disk. A {@link Cache} set by
+     * {@link #setCache(Cache)} is used instead, if any.
+     *
+     * @param maxBytes max size of the built-in media cache, in bytes. 0 to not use it (default).
+     */
+    public Builder setMediaCacheSize(long maxBytes) {
+      if (maxBytes < 0) throw new IllegalArgumentException("Invalid cache size: " + maxBytes);
+      this.mediaCacheSize = maxBytes;
+      return this;
+    }
+
     public Config build() {
       return new Config(extensionMode, meter, loadControl, dataSourceFactory,
-          mediaSourceBuilder, drmSessionManagers, cache);
+          mediaSourceBuilder, drmSessionManagers, cache, mediaCacheSize);
     }
   }
 }
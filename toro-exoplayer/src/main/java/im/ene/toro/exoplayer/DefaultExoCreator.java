@@ -36,7 +36,7 @@ import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
-import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.Cache;
 import java.io.IOException;
 
 import static im.ene.toro.ToroUtil.checkNotNull;
@@ -59,6 +59,13 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
   private final RenderersFactory renderersFactory;  // stateless
   private final DataSource.Factory mediaDataSourceFactory;  // stateless
   private final DataSource.Factory manifestDataSourceFactory; // stateless
+  // For the Prefetcher: the media Cache if any, and the media data source without the Cache.
+  @Nullable final Cache cache;
+  final DataSource.Factory upstreamDataSourceFactory;
+
+  // Totals of the media sources created by this creator, updated on main thread.
+  private long bytesLoaded;
+  private int loadErrorCount;
 
   @SuppressWarnings("unchecked")  //
   public DefaultExoCreator(ToroExo toro, Config config) {
@@ -74,7 +81,13 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
     }
     DataSource.Factory factory = new DefaultDataSourceFactory(this.toro.context,  //
         config.meter, baseFactory);
-    if (config.cache != null) factory = new CacheDataSourceFactory(config.cache, factory);
+    Cache cache = config.cache;
+    if (cache == null && config.mediaCacheSize > 0) {
+      cache = this.toro.getMediaCache(config.mediaCacheSize);
+    }
+    this.cache = cache;
+    this.upstreamDataSourceFactory = factory;
+    if (cache != null) factory = this.toro.mediaCache.wrap(cache, factory);
     mediaDataSourceFactory = factory;
     manifestDataSourceFactory = new DefaultDataSourceFactory(this.toro.context, this.toro.appName);
   }
@@ -119,18 +132,56 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
 
   @NonNull @Override public SimpleExoPlayer createPlayer() {
     // return ExoPlayerFactory.newSimpleInstance(renderersFactory, trackSelector, loadControl);
-    return new ToroExoPlayer(renderersFactory, trackSelector, loadControl);
+    BufferCoordinator coordinator = toro.bufferCoordinator;
+    LoadControl control =
+        coordinator.isEnabled() ? coordinator.newLoadControl(loadControl) : loadControl;
+    ToroExoPlayer player = new ToroExoPlayer(renderersFactory, trackSelector, control);
+    player.setLoadArbiter(toro.loadArbiter);
+    return player;
   }
 
   @NonNull @Override public MediaSource createMediaSource(@NonNull Uri uri, String fileExt) {
+    return createMediaSource(uri, fileExt, this);
+  }
+
+  /**
+   * Same as {@link #createMediaSource(Uri, String)}, but the load events go to the listener. The
+   * listener should forward them to this creator, so its totals stay correct.
+   */
+  @NonNull public MediaSource createMediaSource(@NonNull Uri uri, String fileExt,
+      @NonNull MediaSourceEventListener listener) {
+    return createMediaSource(uri, fileExt, listener, null);
+  }
+
+  // The media loads of a player go through the LoadArbiter with the player's Priority, if enabled.
+  @NonNull MediaSource createMediaSource(@NonNull Uri uri, String fileExt,
+      @NonNull MediaSourceEventListener listener, @Nullable LoadArbiter.Priority priority) {
+    DataSource.Factory factory = mediaDataSourceFactory;
+    if (priority != null && toro.loadArbiter.isEnabled()) {
+      // Arbitrate the upstream only, reading from the Cache needs no network.
+      factory = toro.loadArbiter.wrap(upstreamDataSourceFactory, priority);
+      if (cache != null) factory = toro.mediaCache.wrap(cache, factory);
+    }
     return mediaSourceBuilder.buildMediaSource(this.toro.context, uri, fileExt, new Handler(),
-        manifestDataSourceFactory, mediaDataSourceFactory, this);
+        manifestDataSourceFactory, factory, checkNotNull(listener));
   }
 
   @NonNull @Override public Playable createPlayable(@NonNull Uri uri, String fileExt) {
     return new PlayableImpl(this, uri, fileExt);
   }
 
+  /**
+   * @return total bytes loaded by the media sources of this creator, including the canceled and
+   * failed loads.
+   */
+  public long getBytesLoaded() {
+    return bytesLoaded;
+  }
+
+  public int getLoadErrorCount() {
+    return loadErrorCount;
+  }
+
   /// MediaSourceEventListener
 
   @Override
@@ -144,14 +195,14 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
   public void onLoadCompleted(DataSpec dataSpec, int dataType, int trackType, Format trackFormat,
       int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
       long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded) {
-    // no-ops
+    this.bytesLoaded += bytesLoaded;
   }
 
   @Override
   public void onLoadCanceled(DataSpec dataSpec, int dataType, int trackType, Format trackFormat,
       int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
       long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded) {
-    // no-ops
+    this.bytesLoaded += bytesLoaded;
   }
 
   @Override
@@ -159,7 +210,8 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
       int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
       long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded,
       IOException error, boolean wasCanceled) {
-    // no-ops
+    this.bytesLoaded += bytesLoaded;
+    loadErrorCount++;
   }
 
   @Override
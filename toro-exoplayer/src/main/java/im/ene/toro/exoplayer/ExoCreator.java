@@ -29,6 +29,11 @@ import com.google.android.exoplayer2.source.MediaSource;
  *
  * Most of the time, Client just needs to request for a {@link Playable} for a specific Uri.
  *
+ * The load arbitration (see {@link ToroExo#setLoadArbitrationEnabled(boolean)}), the loaded bytes
+ * of the playback metrics and the {@link Prefetcher} need the media loads to go through Toro, so
+ * they only work with {@link DefaultExoCreator} and its subclasses. Other implementations play
+ * normally, but without those.
+ *
  * @author eneim (2018/02/04).
  * @since 3.4.0
  */
@@ -17,8 +17,13 @@
 package im.ene.toro.exoplayer;
 
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.decoder.DecoderCounters;
 import com.google.android.exoplayer2.ui.PlayerView;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.annotations.RemoveIn;
@@ -29,6 +34,9 @@ import im.ene.toro.widget.Container;
 
 import static im.ene.toro.ToroUtil.checkNotNull;
 import static im.ene.toro.exoplayer.ToroExo.with;
+import static im.ene.toro.widget.PlaybackMetrics.EVENT_BYTES_LOADED;
+import static im.ene.toro.widget.PlaybackMetrics.EVENT_DROPPED_FRAMES;
+import static im.ene.toro.widget.PlaybackMetrics.EVENT_FIRST_FRAME;
 
 /**
  * An implementation of {@link ToroPlayerHelper} where the actual Player is an {@link ExoPlayer}
@@ -40,8 +48,18 @@ import static im.ene.toro.exoplayer.ToroExo.with;
 
 public class ExoPlayerViewHelper extends ToroPlayerHelper {
 
+  // ExoPlayer doesn't report the buffered position, so it is checked at this interval while
+  // someone waits for the readiness of this player.
+  static final long BUFFER_CHECK_INTERVAL_MS = 200;
+
   @NonNull private final ExoPlayable playable;
   @NonNull private final MyEventListeners listeners;
+  @NonNull private final Handler handler = new Handler(Looper.getMainLooper());
+  private boolean readinessWatched;
+  private boolean firstFrameRendered;
+  // Counters already reported to the Container's metrics.
+  private int reportedDroppedFrames;
+  private long reportedBytesLoaded;
 
   // Container is no longer required for constructing new instance.
   @SuppressWarnings("unused") @RemoveIn(version = "3.6.0") @Deprecated  //
@@ -81,13 +99,70 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
   }
 
   @Override protected void initialize(@NonNull PlaybackInfo playbackInfo) {
+    firstFrameRendered = false;
     playable.setPlaybackInfo(playbackInfo);
     playable.addEventListener(listeners);
     playable.prepare(false);
     playable.setPlayerView((PlayerView) player.getPlayerView());
   }
 
+  // Also prepare the MediaSource, so the playback can start from buffered data.
+  @Override public void prewarm() {
+    playable.prepare(true);
+  }
+
+  @Override public long getBufferedDurationMs() {
+    SimpleExoPlayer player = playable.player;
+    if (player == null) return 0;
+    return Math.max(0, player.getBufferedPosition() - player.getCurrentPosition());
+  }
+
+  @Override public boolean isFirstFrameRendered() {
+    return firstFrameRendered;
+  }
+
+  @Override public void setOnReadinessChangedListener(
+      @Nullable ToroPlayer.OnReadinessChangedListener listener) {
+    super.setOnReadinessChangedListener(listener);
+    readinessWatched = listener != null;
+    handler.removeCallbacks(bufferCheck);
+    if (readinessWatched) handler.postDelayed(bufferCheck, BUFFER_CHECK_INTERVAL_MS);
+  }
+
+  private final Runnable bufferCheck = new Runnable() {
+    @Override public void run() {
+      if (!readinessWatched) return;
+      handler.postDelayed(this, BUFFER_CHECK_INTERVAL_MS);
+      onReadinessChanged();
+    }
+  };
+
+  // Report the dropped frames and loaded bytes since the last report, before the session ends.
+  private void reportCounters() {
+    if (container == null) return;
+    long bytesLoaded = playable.getBytesLoaded();
+    if (bytesLoaded > reportedBytesLoaded) {
+      container.recordPlaybackEvent(player, EVENT_BYTES_LOADED, bytesLoaded - reportedBytesLoaded);
+    }
+    reportedBytesLoaded = bytesLoaded;
+
+    SimpleExoPlayer exoPlayer = playable.player;
+    DecoderCounters counters = exoPlayer != null ? exoPlayer.getVideoDecoderCounters() : null;
+    if (counters == null) return;
+    counters.ensureUpdated();
+    // Counters restart from 0 when the decoder is re-enabled, then only the new count is known.
+    int dropped = counters.droppedBufferCount;
+    int delta = dropped >= reportedDroppedFrames ? dropped - reportedDroppedFrames : dropped;
+    if (delta > 0) container.recordPlaybackEvent(player, EVENT_DROPPED_FRAMES, delta);
+    reportedDroppedFrames = dropped;
+  }
+
   @Override public void release() {
+    reportCounters();
+    reportedDroppedFrames = 0;
+    readinessWatched = false;
+    firstFrameRendered = false;
+    handler.removeCallbacks(bufferCheck);
     super.release();
     playable.setPlayerView(null);
     playable.removeEventListener(listeners);
@@ -99,6 +174,7 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
   }
 
   @Override public void pause() {
+    reportCounters();
     playable.pause();
   }
 
@@ -155,6 +231,19 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
     @Override public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
       ExoPlayerViewHelper.super.onPlayerStateUpdated(playWhenReady, playbackState); // important
       super.onPlayerStateChanged(playWhenReady, playbackState);
+      onReadinessChanged();
+    }
+
+    @Override public void onLoadingChanged(boolean isLoading) {
+      super.onLoadingChanged(isLoading);
+      onReadinessChanged();
+    }
+
+    @Override public void onRenderedFirstFrame() {
+      firstFrameRendered = true;
+      if (container != null) container.recordPlaybackEvent(player, EVENT_FIRST_FRAME, 0);
+      super.onRenderedFirstFrame();
+      onReadinessChanged();
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Arbitrates the network between the loads of the players and of the {@link Prefetcher}: the
+ * playing player first, then the players those are not playing (prepared or pre-warmed), then the
+ * prefetch.
+ *
+ * A player registers its level while it needs the network: a playing one while it buffers (to
+ * start, or after a stall), another one while it loads. A load of a lower {@link Priority} waits
+ * before each open and read while a higher level is registered. So while the playing player
+ * rebuffers, the other loads pause at their next read.
+ *
+ * This is the same idea as ExoPlayer's PriorityTaskManager, but the priority of a player changes
+ * when it starts or stops playing, also while its load thread waits. So a waiting load reads its
+ * Priority again each time the state changes.
+ *
+ * @author eneim (2018/08/24).
+ */
+final class LoadArbiter {
+
+  static final int NONE = -1;
+  static final int PREFETCH = 0;
+  static final int PREWARM = 1;
+  static final int PLAYING = 2;
+
+  private final int[] registered = new int[PLAYING + 1];  // number of registrations by level.
+  private volatile boolean enabled;
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  synchronized void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    notifyAll();  // Release the waiting loads.
+  }
+
+  synchronized void add(int level) {
+    registered[level]++;
+  }
+
+  synchronized void remove(int level) {
+    registered[level]--;
+    notifyAll();
+  }
+
+  synchronized void setLevel(@NonNull Priority priority, int level) {
+    if (priority.level == level) return;
+    priority.level = level;
+    notifyAll();
+  }
+
+  // Wait until no level higher than the one of the Priority is registered.
+  synchronized void proceed(@NonNull Priority priority) throws InterruptedException {
+    while (enabled && highestLevel() > priority.level) wait();
+  }
+
+  private int highestLevel() {
+    for (int level = PLAYING; level >= PREFETCH; level--) {
+      if (registered[level] > 0) return level;
+    }
+    return NONE;
+  }
+
+  @NonNull DataSource.Factory wrap(@NonNull DataSource.Factory upstream,
+      @NonNull Priority priority) {
+    return new ArbitratedFactory(upstream, priority);
+  }
+
+  // Priority of the loads of a player, or of the prefetch. Changed by #setLevel(Priority, int).
+  static final class Priority {
+
+    volatile int level;
+
+    Priority(int level) {
+      this.level = level;
+    }
+  }
+
+  final class ArbitratedFactory implements DataSource.Factory {
+
+    @NonNull final DataSource.Factory upstream;
+    @NonNull final Priority priority;
+
+    ArbitratedFactory(@NonNull DataSource.Factory upstream, @NonNull Priority priority) {
+      this.upstream = upstream;
+      this.priority = priority;
+    }
+
+    @Override public DataSource createDataSource() {
+      return new ArbitratedSource(upstream.createDataSource(), priority);
+    }
+  }
+
+  final class ArbitratedSource implements DataSource {
+
+    @NonNull final DataSource upstream;
+    @NonNull final Priority priority;
+
+    ArbitratedSource(@NonNull DataSource upstream, @NonNull Priority priority) {
+      this.upstream = upstream;
+      this.priority = priority;
+    }
+
+    @Override public long open(DataSpec dataSpec) throws IOException {
+      waitForTurn();
+      return upstream.open(dataSpec);
+    }
+
+    @Override public int read(byte[] buffer, int offset, int readLength) throws IOException {
+      waitForTurn();
+      return upstream.read(buffer, offset, readLength);
+    }
+
+    @Override public Uri getUri() {
+      return upstream.getUri();
+    }
+
+    @Override public void close() throws IOException {
+      upstream.close();
+    }
+
+    private void waitForTurn() throws InterruptedIOException {
+      if (!enabled) return;
+      try {
+        proceed(priority);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.MediaSourceEventListener;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import java.io.IOException;
+
+/**
+ * Counts the bytes loaded by the {@link com.google.android.exoplayer2.source.MediaSource} of one
+ * {@link Playable}, and forwards all the events to the {@link DefaultExoCreator} that created it.
+ * The events are delivered on main thread.
+ *
+ * @author eneim (2018/08/22).
+ */
+final class LoadCounter implements MediaSourceEventListener {
+
+  @NonNull private final MediaSourceEventListener delegate;
+
+  /* pkg */ long bytesLoaded;
+
+  LoadCounter(@NonNull MediaSourceEventListener delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void onLoadStarted(DataSpec dataSpec, int dataType, int trackType, Format trackFormat,
+      int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
+      long mediaEndTimeMs, long elapsedRealtimeMs) {
+    delegate.onLoadStarted(dataSpec, dataType, trackType, trackFormat, trackSelectionReason,
+        trackSelectionData, mediaStartTimeMs, mediaEndTimeMs, elapsedRealtimeMs);
+  }
+
+  @Override
+  public void onLoadCompleted(DataSpec dataSpec, int dataType, int trackType, Format trackFormat,
+      int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
+      long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded) {
+    this.bytesLoaded += bytesLoaded;
+    delegate.onLoadCompleted(dataSpec, dataType, trackType, trackFormat, trackSelectionReason,
+        trackSelectionData, mediaStartTimeMs, mediaEndTimeMs, elapsedRealtimeMs, loadDurationMs,
+        bytesLoaded);
+  }
+
+  @Override
+  public void onLoadCanceled(DataSpec dataSpec, int dataType, int trackType, Format trackFormat,
+      int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
+      long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded) {
+    this.bytesLoaded += bytesLoaded;
+    delegate.onLoadCanceled(dataSpec, dataType, trackType, trackFormat, trackSelectionReason,
+        trackSelectionData, mediaStartTimeMs, mediaEndTimeMs, elapsedRealtimeMs, loadDurationMs,
+        bytesLoaded);
+  }
+
+  @Override
+  public void onLoadError(DataSpec dataSpec, int dataType, int trackType, Format trackFormat,
+      int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs,
+      long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded,
+      IOException error, boolean wasCanceled) {
+    this.bytesLoaded += bytesLoaded;
+    delegate.onLoadError(dataSpec, dataType, trackType, trackFormat, trackSelectionReason,
+        trackSelectionData, mediaStartTimeMs, mediaEndTimeMs, elapsedRealtimeMs, loadDurationMs,
+        bytesLoaded, error, wasCanceled);
+  }
+
+  @Override
+  public void onUpstreamDiscarded(int trackType, long mediaStartTimeMs, long mediaEndTimeMs) {
+    delegate.onUpstreamDiscarded(trackType, mediaStartTimeMs, mediaEndTimeMs);
+  }
+
+  @Override
+  public void onDownstreamFormatChanged(int trackType, Format trackFormat, int trackSelectionReason,
+      Object trackSelectionData, long mediaTimeMs) {
+    delegate.onDownstreamFormatChanged(trackType, trackFormat, trackSelectionReason,
+        trackSelectionData, mediaTimeMs);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSinkFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.CacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.CacheSpan;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss and eviction counters of the media {@link Cache}s used by the {@link ExoCreator}s of a
+ * {@link ToroExo}.
+ *
+ * {@link #wrap(Cache, DataSource.Factory)} puts a Cache in front of an upstream factory: bytes
+ * read from the Cache are hits, bytes read from the upstream through the Cache are misses.
+ * {@link #newEvictor(long)} creates the least recently used evictor of the built-in Cache, and
+ * counts the spans it evicts.
+ *
+ * Counters are updated from the loading threads, so they are atomic.
+ *
+ * @author eneim (2018/08/23).
+ */
+final class MediaCache implements CacheDataSource.EventListener {
+
+  final AtomicLong hitBytes = new AtomicLong();
+  final AtomicLong missBytes = new AtomicLong();
+  final AtomicLong evictionCount = new AtomicLong();
+
+  // Same as CacheDataSourceFactory(Cache, DataSource.Factory), plus the counting.
+  @NonNull DataSource.Factory wrap(@NonNull Cache cache, @NonNull DataSource.Factory upstream) {
+    return new CacheDataSourceFactory(cache, new CountingFactory(upstream),
+        new FileDataSourceFactory(),
+        new CacheDataSinkFactory(cache, CacheDataSource.DEFAULT_MAX_CACHE_FILE_SIZE),
+        0, this);
+  }
+
+  @NonNull CacheEvictor newEvictor(long maxBytes) {
+    return new Evictor(new LeastRecentlyUsedCacheEvictor(maxBytes));
+  }
+
+  @Override public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+    hitBytes.addAndGet(cachedBytesRead);
+  }
+
+  // Counts the bytes read from the upstream, those are the Cache misses.
+  final class CountingFactory implements DataSource.Factory {
+
+    @NonNull final DataSource.Factory upstream;
+
+    CountingFactory(@NonNull DataSource.Factory upstream) {
+      this.upstream = upstream;
+    }
+
+    @Override public DataSource createDataSource() {
+      return new CountingSource(upstream.createDataSource());
+    }
+  }
+
+  final class CountingSource implements DataSource {
+
+    @NonNull final DataSource upstream;
+
+    CountingSource(@NonNull DataSource upstream) {
+      this.upstream = upstream;
+    }
+
+    @Override public long open(DataSpec dataSpec) throws IOException {
+      return upstream.open(dataSpec);
+    }
+
+    @Override public int read(byte[] buffer, int offset, int readLength) throws IOException {
+      int read = upstream.read(buffer, offset, readLength);
+      if (read > 0) missBytes.addAndGet(read);
+      return read;
+    }
+
+    @Override public Uri getUri() {
+      return upstream.getUri();
+    }
+
+    @Override public void close() throws IOException {
+      upstream.close();
+    }
+  }
+
+  // The Cache calls its evictor under its own lock. The spans removed while the LRU evictor runs
+  // are the evicted ones.
+  final class Evictor implements CacheEvictor {
+
+    @NonNull final CacheEvictor delegate;
+    private boolean evicting;
+
+    Evictor(@NonNull CacheEvictor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override public void onCacheInitialized() {
+      delegate.onCacheInitialized();
+    }
+
+    @Override public void onStartFile(Cache cache, String key, long position, long length) {
+      evicting = true;
+      try {
+        delegate.onStartFile(cache, key, position, length);
+      } finally {
+        evicting = false;
+      }
+    }
+
+    @Override public void onSpanAdded(Cache cache, CacheSpan span) {
+      evicting = true;
+      try {
+        delegate.onSpanAdded(cache, span);
+      } finally {
+        evicting = false;
+      }
+    }
+
+    @Override public void onSpanRemoved(Cache cache, CacheSpan span) {
+      if (evicting) evictionCount.incrementAndGet();
+      delegate.onSpanRemoved(cache, span);
+    }
+
+    @Override public void onSpanTouched(Cache cache, CacheSpan oldSpan, CacheSpan newSpan) {
+      evicting = true;
+      try {
+        delegate.onSpanTouched(cache, oldSpan, newSpan);
+      } finally {
+        evicting = false;
+      }
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.ui.PlayerView;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroTrace;
 import im.ene.toro.ToroUtil;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.media.VolumeInfo;
@@ -64,6 +65,7 @@ class PlayableImpl implements Playable {
   protected SimpleExoPlayer player; // on-demand, cached
   protected MediaSource mediaSource;  // on-demand
   protected PlayerView playerView; // on-demand, not always required.
+  /* pkg */ LoadCounter loadCounter;  // on-demand, only for DefaultExoCreator.
 
   private boolean listenerApplied = false;
 
@@ -74,32 +76,37 @@ class PlayableImpl implements Playable {
   }
 
   @CallSuper @Override public void prepare(boolean prepareSource) {
-    if (player == null) {
-      player = with(checkNotNull(creator.getContext(), "ExoCreator has no Context")) //
-          .requestPlayer(creator);
-      if (player instanceof ToroExoPlayer && volumeChangeListeners != null) {
-        for (ToroPlayer.OnVolumeChangeListener listener : volumeChangeListeners) {
-          ((ToroExoPlayer) player).addOnVolumeChangeListener(listener);
+    ToroTrace.beginSection("Toro:prepare");
+    try {
+      if (player == null) {
+        player = with(checkNotNull(creator.getContext(), "ExoCreator has no Context")) //
+            .requestPlayer(creator);
+        if (player instanceof ToroExoPlayer && volumeChangeListeners != null) {
+          for (ToroPlayer.OnVolumeChangeListener listener : volumeChangeListeners) {
+            ((ToroExoPlayer) player).addOnVolumeChangeListener(listener);
+          }
         }
       }
-    }
 
-    if (!listenerApplied) {
-      player.addListener(listeners);
-      player.addVideoListener(listeners);
-      player.addTextOutput(listeners);
-      player.addMetadataOutput(listeners);
-      listenerApplied = true;
-    }
+      if (!listenerApplied) {
+        player.addListener(listeners);
+        player.addVideoListener(listeners);
+        player.addTextOutput(listeners);
+        player.addMetadataOutput(listeners);
+        listenerApplied = true;
+      }
 
-    boolean haveResumePosition = playbackInfo.getResumeWindow() != C.INDEX_UNSET;
-    if (haveResumePosition) {
-      player.seekTo(playbackInfo.getResumeWindow(), playbackInfo.getResumePosition());
-    }
+      boolean haveResumePosition = playbackInfo.getResumeWindow() != C.INDEX_UNSET;
+      if (haveResumePosition) {
+        player.seekTo(playbackInfo.getResumeWindow(), playbackInfo.getResumePosition());
+      }
 
-    if (prepareSource) {
-      ensurePlayerView();
-      ensureMediaSource();
+      if (prepareSource) {
+        ensurePlayerView();
+        ensureMediaSource();
+      }
+    } finally {
+      ToroTrace.endSection();
     }
   }
 
@@ -258,10 +265,29 @@ class PlayableImpl implements Playable {
     if (playerView != null && playerView.getPlayer() != player) playerView.setPlayer(player);
   }
 
+  // Bytes loaded by the media source of this Playable, 0 if unknown: only the media sources of a
+  // DefaultExoCreator are counted, see ExoCreator.
+  long getBytesLoaded() {
+    return loadCounter != null ? loadCounter.bytesLoaded : 0;
+  }
+
   private void ensureMediaSource() {
     if (mediaSource == null) {  // Only actually prepare the source when play() is called.
-      mediaSource = creator.createMediaSource(mediaUri, fileExt);
-      player.prepare(mediaSource, playbackInfo.getResumeWindow() == C.INDEX_UNSET, false);
+      ToroTrace.beginSection("Toro:ensureMediaSource");
+      try {
+        if (creator instanceof DefaultExoCreator) {
+          if (loadCounter == null) loadCounter = new LoadCounter((DefaultExoCreator) creator);
+          LoadArbiter.Priority priority =
+              player instanceof ToroExoPlayer ? ((ToroExoPlayer) player).loadPriority : null;
+          mediaSource = ((DefaultExoCreator) creator).createMediaSource(mediaUri, fileExt,
+              loadCounter, priority);
+        } else {
+          mediaSource = creator.createMediaSource(mediaUri, fileExt);
+        }
+        player.prepare(mediaSource, playbackInfo.getResumeWindow() == C.INDEX_UNSET, false);
+      } finally {
+        ToroTrace.endSection();
+      }
     }
   }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2018 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import im.ene.toro.widget.Container;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+
+/**
+ * Loads the beginning of the media of the next items into the media {@link Cache}, ahead of the
+ * scroll direction, so that they start from disk instead of the network once they are selected.
+ *
+ * Set it to a {@link Container} using
+ * {@link Container#setPlaybackWindowListener(Container.PlaybackWindowListener)}. After each
+ * selection, the first bytes of the next {@code itemCount} items after the playing ones are
+ * loaded on a small background executor. The loads those fall out of this window are canceled,
+ * all of them when the scroll direction changes. A session stops loading once it has loaded
+ * {@code sessionBudget} bytes, see {@link #newSession()}.
+ *
+ * The {@link ExoCreator} must be a {@link DefaultExoCreator} whose {@link Config} has a Cache (see
+ * {@link Config.Builder#setMediaCacheSize(long)}). Only the media of a single file (for example
+ * MP4) benefit from this: the first bytes of an adaptive stream's manifest are not its media.
+ *
+ * @author eneim (2018/08/24).
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class Prefetcher implements Container.PlaybackWindowListener {
+
+  /**
+   * Provides the media of the Adapter items.
+   */
+  public interface MediaProvider {
+
+    /**
+     * @param position the Adapter position of an item.
+     * @return the {@link Uri} of the item's media, or {@code null} if it has none.
+     */
+    @Nullable Uri getMediaUri(int position);
+  }
+
+  static final int MAX_THREADS = 2;
+  private static final long THREAD_KEEP_ALIVE_SECONDS = 10;
+
+  // Task states.
+  static final int QUEUED = 0;
+  static final int RUNNING = 1;
+  static final int CANCELED = 2;
+
+  // Prefetch loads have the lowest priority, see ToroExo#setLoadArbitrationEnabled(boolean).
+  private static final LoadArbiter.Priority PRIORITY =
+      new LoadArbiter.Priority(LoadArbiter.PREFETCH);
+
+  @NonNull private final Cache cache;
+  @NonNull private final DataSource.Factory upstream;
+  @NonNull private final MediaProvider provider;
+  private final int itemCount;
+  private final long bytesPerItem;
+  private final long sessionBudget;
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final SparseArray<Task> tasks = new SparseArray<>();  // by Adapter position.
+  private final HashSet<String> loaded = new HashSet<>();  // keys loaded in this session.
+  private ThreadPoolExecutor executor;  // on demand.
+
+  private int session;
+  private int direction = 1;
+  private long reservedBytes;  // max bytes the queued and running tasks may load.
+  private long loadedBytes;  // bytes loaded in this session.
+  private int loadCount;
+  private int cancelCount;
+
+  /**
+   * @param creator the {@link DefaultExoCreator} whose media Cache to fill.
+   * @param provider provides the media of the Adapter items.
+   * @param itemCount number of items to load ahead of the playing ones.
+   * @param bytesPerItem number of bytes to load from the beginning of each media.
+   * @param sessionBudget max number of bytes loaded in a session.
+   */
+  public Prefetcher(@NonNull ExoCreator creator, @NonNull MediaProvider provider, int itemCount,
+      long bytesPerItem, long sessionBudget) {
+    if (!(creator instanceof DefaultExoCreator) || ((DefaultExoCreator) creator).cache == null) {
+      throw new IllegalArgumentException("Require a DefaultExoCreator with a media Cache.");
+    }
+    if (itemCount <= 0 || bytesPerItem <= 0 || sessionBudget <= 0) {
+      throw new IllegalArgumentException("Invalid count, size or budget.");
+    }
+    DefaultExoCreator defaultCreator = (DefaultExoCreator) creator;
+    this.cache = checkNotNull(defaultCreator.cache);
+    this.upstream =
+        defaultCreator.toro.loadArbiter.wrap(defaultCreator.upstreamDataSourceFactory, PRIORITY);
+    this.provider = checkNotNull(provider);
+    this.itemCount = itemCount;
+    this.bytesPerItem = bytesPerItem;
+    this.sessionBudget = sessionBudget;
+  }
+
+  @MainThread @Override
+  public void onPlaybackWindowChanged(@NonNull Container container, int anchor, int direction) {
+    if (direction != this.direction) {
+      this.direction = direction;
+      cancelAll();
+    }
+
+    int from = anchor + direction;
+    int to = anchor + direction * itemCount;
+    for (int i = tasks.size() - 1; i >= 0; i--) {
+      int position = tasks.keyAt(i);
+      if (position < Math.min(from, to) || position > Math.max(from, to)) cancelAt(i);
+    }
+
+    RecyclerView.Adapter adapter = container.getAdapter();
+    int count = adapter != null ? adapter.getItemCount() : 0;
+    for (int position = from; position >= 0 && position < count; position += direction) {
+      if (Math.abs(position - anchor) > itemCount) break;
+      if (tasks.get(position) != null) continue;
+      Uri uri = provider.getMediaUri(position);
+      if (uri == null) continue;
+      String key = uri.toString();
+      if (loaded.contains(key)) continue;
+      long length = Math.min(bytesPerItem, sessionBudget - loadedBytes - reservedBytes);
+      if (length <= 0) break;  // Budget is used.
+      Task task = new Task(session, position, uri, key, length);
+      reservedBytes += length;
+      tasks.put(position, task);
+      task.future = getExecutor().submit(task);
+    }
+  }
+
+  /**
+   * Cancel the current loads and start a new session, with a full budget.
+   */
+  @MainThread public void newSession() {
+    cancelAll();
+    session++;
+    loaded.clear();
+    loadedBytes = 0;
+    reservedBytes = 0;
+  }
+
+  /**
+   * Cancel all the loads and stop the executor. This Prefetcher can still be used after that.
+   */
+  @MainThread public void release() {
+    cancelAll();
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * @return bytes loaded into the Cache in the current session.
+   */
+  public long getLoadedBytes() {
+    return loadedBytes;
+  }
+
+  /**
+   * @return number of media loaded to the end of their requested length.
+   */
+  public int getLoadCount() {
+    return loadCount;
+  }
+
+  public int getCancelCount() {
+    return cancelCount;
+  }
+
+  private void cancelAll() {
+    for (int i = tasks.size() - 1; i >= 0; i--) {
+      cancelAt(i);
+    }
+  }
+
+  private void cancelAt(int index) {
+    Task task = tasks.valueAt(index);
+    tasks.removeAt(index);
+    cancelCount++;
+    if (task.state.compareAndSet(QUEUED, CANCELED)) {
+      reservedBytes -= task.length;  // Will never run.
+      task.future.cancel(false);
+    } else {
+      task.future.cancel(true);  // Interrupts the load, #onTaskFinished releases its bytes.
+    }
+  }
+
+  // Called on main thread once a started task ends, canceled or not.
+  void onTaskFinished(@NonNull Task task) {
+    if (tasks.get(task.position) == task) tasks.remove(task.position);
+    if (task.session != session) return;  // Accounted already by #newSession.
+    reservedBytes -= task.length;
+    loadedBytes += task.counters.newlyCachedBytes;
+    if (task.completed) {
+      loaded.add(task.key);
+      loadCount++;
+    }
+  }
+
+  private ThreadPoolExecutor getExecutor() {
+    if (executor == null) {
+      executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, THREAD_KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY);
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+
+  private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "ToroLib:Prefetcher-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+
+  final class Task implements Runnable {
+
+    final int session;
+    final int position;
+    @NonNull final Uri uri;
+    @NonNull final String key;
+    final long length;
+    final AtomicInteger state = new AtomicInteger(QUEUED);
+    final CacheUtil.CachingCounters counters = new CacheUtil.CachingCounters();
+    Future<?> future;
+    boolean completed;  // written on the loading thread, read on main thread after the post.
+
+    Task(int session, int position, @NonNull Uri uri, @NonNull String key, long length) {
+      this.session = session;
+      this.position = position;
+      this.uri = uri;
+      this.key = key;
+      this.length = length;
+    }
+
+    @Override public void run() {
+      if (!state.compareAndSet(QUEUED, RUNNING)) return;
+      Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+      try {
+        CacheUtil.cache(new DataSpec(uri, 0, length, key), cache, upstream.createDataSource(),
+            counters);
+        completed = true;
+      } catch (IOException | InterruptedException ignored) {
+        // Canceled, or failed. The player will load it again anyway.
+      } finally {
+        handler.post(new Runnable() {
+          @Override public void run() {
+            onTaskFinished(Task.this);
+          }
+        });
+      }
+    }
+  }
+}
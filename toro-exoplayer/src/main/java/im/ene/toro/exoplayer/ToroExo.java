@@ -17,9 +17,15 @@
 package im.ene.toro.exoplayer;
 
 import android.annotation.SuppressLint;
+import android.app.ActivityManager;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
@@ -27,6 +33,7 @@ import android.support.annotation.RestrictTo;
 import android.support.annotation.StringRes;
 import android.support.v4.util.Pools;
 import android.text.TextUtils;
+import android.util.Log;
 import android.widget.Toast;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
@@ -37,12 +44,17 @@ import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
 import com.google.android.exoplayer2.drm.UnsupportedDrmException;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
 import com.google.android.exoplayer2.util.Util;
+import im.ene.toro.ToroTrace;
 import im.ene.toro.media.DrmMedia;
 import im.ene.toro.media.VolumeInfo;
+import java.io.File;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -76,10 +88,13 @@ import static java.lang.Runtime.getRuntime;
 public final class ToroExo {
 
   private static final String TAG = "ToroExo";
+  private static final String MEDIA_CACHE_DIR = "toro_media";
 
   // Magic number: Build.VERSION.SDK_INT / 6 --> API 16 ~ 18 will set pool size to 2, etc.
   @SuppressWarnings("WeakerAccess") //
   static final int MAX_POOL_SIZE = Math.max(Util.SDK_INT / 6, getRuntime().availableProcessors());
+  // Roughly the heap size (in MB) allowed for each idle player. See #computeMaxPoolSize(Context).
+  private static final int MEMORY_CLASS_PER_PLAYER = 32;
   @SuppressLint("StaticFieldLeak")  //
   static volatile ToroExo toro;
 
@@ -97,13 +112,36 @@ public final class ToroExo {
   @NonNull private final Map<Config, ExoCreator> creators;
   @NonNull private final Map<ExoCreator, Pools.Pool<SimpleExoPlayer>> playerPools;
 
+  @NonNull private final ArrayList<PrewarmTask> prewarmTasks = new ArrayList<>();
+  @NonNull final BufferCoordinator bufferCoordinator = new BufferCoordinator();
+  @NonNull final MediaCache mediaCache = new MediaCache();
+  @NonNull final LoadArbiter loadArbiter = new LoadArbiter();
+
+  private SimpleCache simpleCache;  // built-in media cache, created on demand.
+  private long simpleCacheSize;
+
+  // Max number of idle players kept by all the Pools together.
+  private int maxPoolSize;
+  private int pooledCount;  // number of idle players in all the Pools.
+  private int poolCapacity;  // capacity of each Pool, grows with maxPoolSize.
+
   private Config defaultConfig; // will be created on the first time it is used.
 
+  // Pool statistics, see #getPoolHitCount() and so on.
+  private int poolHitCount;
+  private int poolMissCount;
+  private int creationCount;
+  private long creationTimeNanos;  // total time spent in ExoCreator#createPlayer()
+  private long maxCreationTimeNanos;
+
   private ToroExo(@NonNull Context context /* Application context */) {
     this.context = context;
     this.appName = getUserAgent(context, LIB_NAME);
     this.playerPools = new HashMap<>();
     this.creators = new HashMap<>();
+    this.maxPoolSize = computeMaxPoolSize(context);
+    this.poolCapacity = Math.max(MAX_POOL_SIZE, maxPoolSize);
+    this.context.registerComponentCallbacks(memoryCallbacks);
 
     // Adapt from ExoPlayer demo app. Start this on demand.
     CookieManager cookieManager = new CookieManager();
@@ -150,28 +188,227 @@ public final class ToroExo {
    */
   @NonNull  //
   public final SimpleExoPlayer requestPlayer(@NonNull ExoCreator creator) {
-    SimpleExoPlayer player = getPool(checkNotNull(creator)).acquire();
-    if (player == null) player = creator.createPlayer();
-    return player;
+    ToroTrace.beginSection("Toro:requestPlayer");
+    try {
+      SimpleExoPlayer player = getPool(checkNotNull(creator)).acquire();
+      if (player == null) {
+        poolMissCount++;
+        player = createPlayer(creator);
+      } else {
+        poolHitCount++;
+        pooledCount--;
+      }
+      return player;
+    } finally {
+      ToroTrace.endSection();
+    }
+  }
+
+  /**
+   * Create up to {@code count} {@link SimpleExoPlayer} instances for the creator ahead of time,
+   * and put them to its Pool, so that they don't need to be created during the first scroll. The
+   * players are created one by one on main thread, only when its queue is idle. Creation stops
+   * once the Pool is full.
+   *
+   * Calling this again for the same creator replaces the previous count.
+   *
+   * @param creator the {@link ExoCreator} to create the players with.
+   * @param count number of players to create.
+   */
+  @MainThread public final void prewarm(@NonNull ExoCreator creator, int count) {
+    checkNotNull(creator);
+    if (Looper.myLooper() != Looper.getMainLooper()) {
+      throw new IllegalStateException("Must be called from main thread.");
+    }
+
+    for (PrewarmTask task : prewarmTasks) {
+      if (task.creator == creator) {
+        task.remaining = count;
+        return;
+      }
+    }
+
+    if (count <= 0) return;
+    PrewarmTask task = new PrewarmTask(creator, count);
+    prewarmTasks.add(task);
+    Looper.myQueue().addIdleHandler(task);
+  }
+
+  /**
+   * @return number of {@link #requestPlayer(ExoCreator)} calls served by a pooled player.
+   */
+  public final int getPoolHitCount() {
+    return poolHitCount;
+  }
+
+  /**
+   * @return number of {@link #requestPlayer(ExoCreator)} calls those had to create a new player.
+   */
+  public final int getPoolMissCount() {
+    return poolMissCount;
+  }
+
+  /**
+   * @return number of players created so far, on request or by {@link #prewarm(ExoCreator, int)}.
+   */
+  public final int getCreationCount() {
+    return creationCount;
+  }
+
+  /**
+   * @return average time to create a player, in nanoseconds. 0 if no player was created yet.
+   */
+  public final long getAverageCreationTimeNanos() {
+    return creationCount > 0 ? creationTimeNanos / creationCount : 0;
+  }
+
+  /**
+   * @return longest time to create a player, in nanoseconds.
+   */
+  public final long getMaxCreationTimeNanos() {
+    return maxCreationTimeNanos;
   }
 
   /**
-   * Release player to Pool attached to the creator.
+   * Release player to Pool attached to the creator. If the Pools are full, the player is released
+   * right away, so the caller must not use it after this call either way.
    *
    * @param creator the {@link ExoCreator} that created the player.
    * @param player the {@link SimpleExoPlayer} to be released back to the Pool
-   * @return true if player is released to relevant Pool, false otherwise.
+   * @return true if player is released to relevant Pool, false if it is released for good.
    */
   @SuppressWarnings({ "WeakerAccess", "UnusedReturnValue" }) //
   public final boolean releasePlayer(@NonNull ExoCreator creator, @NonNull SimpleExoPlayer player) {
-    return getPool(checkNotNull(creator)).release(player);
+    boolean recycled = recycle(checkNotNull(creator), checkNotNull(player));
+    if (!recycled) player.release();  // Nobody else holds it now.
+    return recycled;
+  }
+
+  /**
+   * Set the max number of idle {@link SimpleExoPlayer}s kept by the Pools of all the creators
+   * together. Extra idle players are released right away. By default, this is computed from the
+   * memory class of the device.
+   *
+   * @param maxPoolSize max number of idle players, 0 to disable the pooling.
+   */
+  public final void setMaxPoolSize(int maxPoolSize) {
+    if (maxPoolSize < 0) throw new IllegalArgumentException("Invalid pool size: " + maxPoolSize);
+    this.maxPoolSize = maxPoolSize;
+    trimPools(maxPoolSize);
+    if (maxPoolSize > poolCapacity) growPools(maxPoolSize);
+  }
+
+  public final int getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  /**
+   * Share one buffer of {@code budgetBytes} across all the players created from now on by the
+   * {@link ExoCreator}s of this {@link ToroExo}, instead of letting each {@link LoadControl}
+   * buffer on its own. The playing player has priority over the prepared or pre-warmed ones.
+   *
+   * The {@link LoadControl} of the {@link Config} still decides how long to buffer. This should be
+   * set early, for example in {@link Application#onCreate()}, as the existing players are not
+   * affected. Disabled by default.
+   *
+   * @param budgetBytes total buffer size in bytes, 0 to disable.
+   */
+  public final void setBufferBudget(int budgetBytes) {
+    if (budgetBytes < 0) throw new IllegalArgumentException("Invalid budget: " + budgetBytes);
+    bufferCoordinator.setBudget(budgetBytes);
+  }
+
+  public final int getBufferBudget() {
+    return bufferCoordinator.getBudget();
+  }
+
+  /**
+   * @return number of bytes currently allocated from the shared buffer.
+   */
+  public final int getBufferedBytes() {
+    return bufferCoordinator.getAllocatedBytes();
   }
 
   /**
-   * Release and clear all current cached ExoPlayer instances. This should be called when
-   * client Application runs out of memory ({@link Application#onTrimMemory(int)} for example).
+   * Let the media loads share the network by priority: the playing player first, then the
+   * prepared or pre-warmed ones, then the {@link Prefetcher}. While the playing player buffers,
+   * the other loads pause at their next read, so it starts or recovers from a stall sooner.
+   *
+   * Applies to the media sources created from now on by the {@link DefaultExoCreator}s (and their
+   * subclasses) only: the loads of other {@link ExoCreator}s are never arbitrated, nor paused.
+   * Disabling it resumes the paused loads at once. Disabled by default.
+   *
+   * @param enabled {@code true} to enable the arbitration.
+   */
+  public final void setLoadArbitrationEnabled(boolean enabled) {
+    loadArbiter.setEnabled(enabled);
+  }
+
+  public final boolean isLoadArbitrationEnabled() {
+    return loadArbiter.isEnabled();
+  }
+
+  /**
+   * Get the built-in media {@link Cache}: a {@link SimpleCache} in the application's cache
+   * directory, whose least recently used content is evicted above its size. There is only one
+   * instance per application, as a folder must not be used by two SimpleCaches. It is created by
+   * the first call, with the size of that call. The size of the later calls is ignored.
+   *
+   * {@link Config.Builder#setMediaCacheSize(long)} makes the {@link Config} use this Cache.
+   *
+   * @param maxBytes max size of the Cache, in bytes.
+   * @return the built-in media Cache.
+   */
+  @NonNull public final synchronized Cache getMediaCache(long maxBytes) {
+    if (maxBytes <= 0) throw new IllegalArgumentException("Invalid cache size: " + maxBytes);
+    if (simpleCache == null) {
+      File folder = new File(context.getCacheDir(), MEDIA_CACHE_DIR);
+      simpleCache = new SimpleCache(folder, mediaCache.newEvictor(maxBytes));
+      simpleCacheSize = maxBytes;
+    } else if (maxBytes != simpleCacheSize) {
+      Log.w(TAG, "Media cache exists with size " + simpleCacheSize + ", ignore: " + maxBytes);
+    }
+    return simpleCache;
+  }
+
+  /**
+   * @return bytes read from the media Caches, for all the {@link Config}s using a Cache.
+   */
+  public final long getMediaCacheHitBytes() {
+    return mediaCache.hitBytes.get();
+  }
+
+  /**
+   * @return bytes read from the network (or other upstream) through the media Caches, for all the
+   * {@link Config}s using a Cache.
+   */
+  public final long getMediaCacheMissBytes() {
+    return mediaCache.missBytes.get();
+  }
+
+  /**
+   * @return number of cached spans evicted from the built-in media Cache to stay in its size.
+   */
+  public final long getMediaCacheEvictionCount() {
+    return mediaCache.evictionCount.get();
+  }
+
+  /**
+   * @return number of idle {@link SimpleExoPlayer}s in all the Pools.
+   */
+  public final int getPooledCount() {
+    return pooledCount;
+  }
+
+  /**
+   * Release and clear all current cached ExoPlayer instances. The Pools are already shrunk
+   * automatically on {@link Application#onTrimMemory(int)}, but client can call this to release
+   * them all at once.
    */
   public final void cleanUp() {
+    // Stop the pre-warming, those tasks will remove themselves on next idle time.
+    for (PrewarmTask task : prewarmTasks) task.remaining = 0;
+    prewarmTasks.clear();
     // TODO [2018/03/07] Test this. Ref: https://stackoverflow.com/a/1884916/1553254
     for (Iterator<Map.Entry<ExoCreator, Pools.Pool<SimpleExoPlayer>>> it =
         playerPools.entrySet().iterator(); it.hasNext(); ) {
@@ -180,13 +417,142 @@ public final class ToroExo {
       while ((item = pool.acquire()) != null) item.release();
       it.remove();
     }
+    pooledCount = 0;
   }
 
   /// internal APIs
+  // Keep a low RAM device to one idle player, otherwise allow one per MEMORY_CLASS_PER_PLAYER of
+  // heap, but not more than the CPU based MAX_POOL_SIZE.
+  private static int computeMaxPoolSize(Context context) {
+    ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+    if (manager == null) return MAX_POOL_SIZE;
+    if (Util.SDK_INT >= 19 && manager.isLowRamDevice()) return 1;
+    return Math.max(1, Math.min(MAX_POOL_SIZE, manager.getMemoryClass() / MEMORY_CLASS_PER_PLAYER));
+  }
+
+  // Put the player back to the Pool, if the global limit allows.
+  private boolean recycle(ExoCreator creator, SimpleExoPlayer player) {
+    if (pooledCount >= maxPoolSize || !getPool(creator).release(player)) return false;
+    pooledCount++;
+    return true;
+  }
+
+  // A SimplePool has a fixed capacity, so move the idle players to larger Pools.
+  private void growPools(int capacity) {
+    poolCapacity = capacity;
+    for (Map.Entry<ExoCreator, Pools.Pool<SimpleExoPlayer>> entry : playerPools.entrySet()) {
+      Pools.Pool<SimpleExoPlayer> pool = new Pools.SimplePool<>(capacity);
+      SimpleExoPlayer player;
+      while ((player = entry.getValue().acquire()) != null) pool.release(player);
+      entry.setValue(pool);
+    }
+  }
+
+  // Release the idle players, one from each Pool in turn, until there are at most `target` left.
+  private void trimPools(int target) {
+    while (pooledCount > target) {
+      boolean released = false;
+      for (Pools.Pool<SimpleExoPlayer> pool : playerPools.values()) {
+        if (pooledCount <= target) break;
+        SimpleExoPlayer player = pool.acquire();
+        if (player != null) {
+          player.release();
+          pooledCount--;
+          released = true;
+        }
+      }
+      if (!released) {  // Should not happen, the count is out of sync.
+        pooledCount = 0;
+        break;
+      }
+    }
+  }
+
+  // Shrink the Pools step by step as the memory pressure increases. Idle players are useless in
+  // background, so they are all released there.
+  private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+    @Override public void onTrimMemory(int level) {
+      // No more pre-warming under memory pressure.
+      for (PrewarmTask task : prewarmTasks) task.remaining = 0;
+      prewarmTasks.clear();
+
+      int target;
+      if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+        target = 0;
+      } else if (level == TRIM_MEMORY_RUNNING_LOW) {
+        target = maxPoolSize / 4;
+      } else {  // TRIM_MEMORY_RUNNING_MODERATE, TRIM_MEMORY_UI_HIDDEN
+        target = maxPoolSize / 2;
+      }
+      trimPools(target);
+      bufferCoordinator.trim();
+    }
+
+    @Override public void onLowMemory() {
+      trimPools(0);
+      bufferCoordinator.trim();
+    }
+
+    @Override public void onConfigurationChanged(Configuration newConfig) {
+      // Do nothing.
+    }
+  };
+
+  private SimpleExoPlayer createPlayer(ExoCreator creator) {
+    long start = System.nanoTime();
+    SimpleExoPlayer player = creator.createPlayer();
+    long time = System.nanoTime() - start;
+    creationCount++;
+    creationTimeNanos += time;
+    if (time > maxCreationTimeNanos) maxCreationTimeNanos = time;
+    return player;
+  }
+
+  // Create one player each time main thread becomes idle. A message is posted to wake the queue up
+  // in between, as the idle handlers are only called when the queue becomes idle again.
+  private final class PrewarmTask implements MessageQueue.IdleHandler, Runnable {
+
+    @NonNull final ExoCreator creator;
+    int remaining;
+    private Handler handler;
+
+    PrewarmTask(@NonNull ExoCreator creator, int remaining) {
+      this.creator = creator;
+      this.remaining = remaining;
+    }
+
+    @Override public boolean queueIdle() {
+      // Check the global limit first, a player created for a full Pool is a wasted creation.
+      if (pooledCount >= maxPoolSize) remaining = 0;
+      if (remaining > 0) {
+        SimpleExoPlayer player = createPlayer(creator);
+        if (recycle(creator, player)) {
+          remaining--;
+        } else {  // Pool is full.
+          player.release();
+          remaining = 0;
+        }
+      }
+
+      if (remaining > 0) {
+        if (handler == null) handler = new Handler();
+        handler.post(this);
+      } else {
+        prewarmTasks.remove(this);
+      }
+      return false;
+    }
+
+    @Override public void run() {
+      Looper.myQueue().addIdleHandler(this);
+    }
+  }
+
   private Pools.Pool<SimpleExoPlayer> getPool(ExoCreator creator) {
     Pools.Pool<SimpleExoPlayer> pool = playerPools.get(creator);
     if (pool == null) {
-      pool = new Pools.SimplePool<>(MAX_POOL_SIZE);
+      // The global limit is checked by #recycle(), a single creator may use all of it.
+      pool = new Pools.SimplePool<>(poolCapacity);
       playerPools.put(creator, pool);
     }
 
@@ -19,6 +19,7 @@ package im.ene.toro.exoplayer;
 import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.RenderersFactory;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.trackselection.TrackSelector;
@@ -41,10 +42,33 @@ public class ToroExoPlayer extends SimpleExoPlayer {
   protected ToroExoPlayer(RenderersFactory renderersFactory, TrackSelector trackSelector,
       LoadControl loadControl) {
     super(renderersFactory, trackSelector, loadControl);
+    this.loadControl = loadControl;
   }
 
+  private final LoadControl loadControl;
+
   private Set<ToroPlayer.OnVolumeChangeListener> listeners;
 
+  // Priority of this player's media loads, see LoadArbiter.
+  final LoadArbiter.Priority loadPriority = new LoadArbiter.Priority(LoadArbiter.PREWARM);
+  private LoadArbiter loadArbiter;
+  private int registeredLevel = LoadArbiter.NONE;
+
+  private final Player.EventListener loadListener = new Playable.DefaultEventListener() {
+    @Override public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+      updateLoadPriority();
+    }
+
+    @Override public void onLoadingChanged(boolean isLoading) {
+      updateLoadPriority();
+    }
+  };
+
+  void setLoadArbiter(@NonNull LoadArbiter loadArbiter) {
+    this.loadArbiter = checkNotNull(loadArbiter);
+    addListener(loadListener);
+  }
+
   public final void addOnVolumeChangeListener(@NonNull ToroPlayer.OnVolumeChangeListener listener) {
     if (this.listeners == null) this.listeners = new HashSet<>();
     this.listeners.add(checkNotNull(listener));
@@ -58,6 +82,43 @@ public class ToroExoPlayer extends SimpleExoPlayer {
     if (this.listeners != null) this.listeners.clear();
   }
 
+  // Let the shared buffer budget know which player is playing, see BufferCoordinator.
+  @CallSuper @Override public void setPlayWhenReady(boolean playWhenReady) {
+    super.setPlayWhenReady(playWhenReady);
+    if (loadControl instanceof BufferCoordinator.Control) {
+      ((BufferCoordinator.Control) loadControl).setPlaying(playWhenReady);
+    }
+    updateLoadPriority();
+  }
+
+  @CallSuper @Override public void release() {
+    if (loadArbiter != null && registeredLevel != LoadArbiter.NONE) {
+      loadArbiter.remove(registeredLevel);
+      registeredLevel = LoadArbiter.NONE;
+    }
+    super.release();
+  }
+
+  // Register with the LoadArbiter while this player needs the network: while it buffers if it is
+  // playing, while it loads otherwise. Called on main thread.
+  void updateLoadPriority() {
+    if (loadArbiter == null) return;
+    boolean playing = getPlayWhenReady();
+    loadArbiter.setLevel(loadPriority, playing ? LoadArbiter.PLAYING : LoadArbiter.PREWARM);
+    int level = LoadArbiter.NONE;
+    if (loadArbiter.isEnabled()) {
+      if (playing && getPlaybackState() == Player.STATE_BUFFERING) {
+        level = LoadArbiter.PLAYING;
+      } else if (!playing && isLoading()) {
+        level = LoadArbiter.PREWARM;
+      }
+    }
+    if (level == registeredLevel) return;
+    if (registeredLevel != LoadArbiter.NONE) loadArbiter.remove(registeredLevel);
+    if (level != LoadArbiter.NONE) loadArbiter.add(level);
+    registeredLevel = level;
+  }
+
   @CallSuper @Override public void setVolume(float audioVolume) {
     this.setVolumeInfo(new VolumeInfo(audioVolume == 0, audioVolume));
   }